@@ -8,16 +8,33 @@ plugins {
 group = "com.filestorage"
 version = "1.0"
 
+// ./gradlew build -PjavaVersion=21 builds for the virtual-thread mode (file-storage.virtual-threads)
+val javaVersion = (findProperty("javaVersion") as String?)?.toInt() ?: 17
+
 java {
     toolchain {
-        languageVersion.set(JavaLanguageVersion.of(17))
+        languageVersion.set(JavaLanguageVersion.of(javaVersion))
+    }
+}
+
+sourceSets {
+    create("loadTest")
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
     }
 }
 
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
 repositories {
     mavenCentral()
 }
 
+// 42.6 replaced the driver's synchronized blocks with locks, so JDBC calls do not pin virtual threads
+extra["postgresql.version"] = "42.6.0"
+
 dependencies {
     /** ------------------------------
      * Spring Boot Starters
@@ -26,6 +43,7 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-cache")
     annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
 
     /** ------------------------------
@@ -42,6 +60,11 @@ dependencies {
     implementation("org.slf4j:slf4j-api:2.0.5")
     implementation("ch.qos.logback:logback-classic:1.4.6")
 
+    /** ------------------------------
+     * Caching
+     * ------------------------------ */
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
     /** ------------------------------
      * Lombok
      * ------------------------------ */
@@ -74,6 +97,13 @@ dependencies {
      * Apache Tika (MIME type detection)
      * ------------------------------ */
     implementation("org.apache.tika:tika-core:2.9.1")
+
+    /** ------------------------------
+     * Benchmarks
+     * ------------------------------ */
+    val jmhVersion = "1.37"
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
 }
 
 tasks.withType<Test> {
@@ -91,6 +121,34 @@ tasks.jacocoTestReport {
     }
 }
 
+/**
+ * Slow-client download load against a running instance, for comparing concurrency limits
+ * with and without virtual threads, e.g.
+ * ./gradlew loadTest -Pload.resourceId=42 -Pload.slowClients=400
+ */
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the download load test against a running instance"
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass.set("com.filestorage.load.DownloadLoadTest")
+    systemProperties(project.properties.filterKeys { it.startsWith("load.") })
+}
+
+/**
+ * JMH benchmarks of the service hot paths, e.g.
+ * ./gradlew jmh -Pjmh.include=FileStorageServiceBenchmark -Pjmh.profilers=gc
+ */
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args((findProperty("jmh.include") as String?) ?: ".*Benchmark.*")
+    (findProperty("jmh.profilers") as String?)?.split(",")?.forEach { args("-prof", it.trim()) }
+    args("-rf", "json", "-rff", layout.buildDirectory.file("reports/jmh/results.json").get().asFile.path)
+    doFirst { layout.buildDirectory.dir("reports/jmh").get().asFile.mkdirs() }
+}
+
 tasks.bootJar {
     archiveFileName.set("filestorage-service.jar")
 }
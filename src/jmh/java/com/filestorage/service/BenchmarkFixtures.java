@@ -0,0 +1,221 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ContentDetectionProperties;
+import com.filestorage.config.ObjectCacheProperties;
+import com.filestorage.dto.UserSnapshot;
+import com.filestorage.model.Project;
+import com.filestorage.model.Resource;
+import com.filestorage.model.ResourceStatus;
+import com.filestorage.model.ResourceType;
+import com.filestorage.model.User;
+import com.filestorage.model.UserRole;
+import com.filestorage.repository.ContentBlobRepository;
+import com.filestorage.repository.ProjectRepository;
+import com.filestorage.repository.ResourceRepository;
+import com.filestorage.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tika.Tika;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@link FileStorageService} wired to in-memory stand-ins: repositories answer from
+ * fixed entities, transactions run inline and objects live in a map. What is left to
+ * measure is the service's own work on the request path.
+ */
+final class BenchmarkFixtures {
+    static final long PROJECT_ID = 1L;
+    static final long USER_ID = 1L;
+    static final long RESOURCE_ID = 1L;
+    static final String RESOURCE_KEY = "project-1/1700000000000-a1b2c3d4-report.pdf";
+
+    final Project project;
+    final User user;
+    final Resource resource;
+    final InMemoryObjectStore objectStore = new InMemoryObjectStore();
+    final FileStorageService service;
+
+    BenchmarkFixtures() {
+        project = Project.builder()
+                .id(PROJECT_ID)
+                .name("Benchmark")
+                .storageSize(BigInteger.ZERO)
+                .maxStorageSize(BigInteger.valueOf(Long.MAX_VALUE))
+                .build();
+        user = User.builder()
+                .id(USER_ID)
+                .nickname("benchmark")
+                .roles(new ArrayList<>(List.of(UserRole.DEVELOPER, UserRole.MANAGER)))
+                .build();
+        resource = Resource.builder()
+                .id(RESOURCE_ID)
+                .name("Quarterly Report (final) v2.pdf")
+                .key(RESOURCE_KEY)
+                .size(BigInteger.ZERO)
+                .contentType("application/pdf")
+                .type(ResourceType.PDF)
+                .status(ResourceStatus.ACTIVE)
+                .allowedRoles(new ArrayList<>(List.of(UserRole.DEVELOPER)))
+                .allowedRolesMask(UserRole.DEVELOPER.bit())
+                .project(project)
+                .createdBy(user)
+                .updatedBy(user)
+                .build();
+
+        StorageMetrics storageMetrics = new StorageMetrics(new SimpleMeterRegistry());
+        UserSnapshot snapshot = new UserSnapshot(USER_ID, user.getNickname(), UserRole.toMask(user.getRoles()));
+        MetadataLookupService metadataLookupService = new MetadataLookupService(null, null) {
+            @Override
+            public UserSnapshot getUser(Long userId) {
+                return snapshot;
+            }
+        };
+
+        service = new FileStorageService(
+                objectStore,
+                stub(ResourceRepository.class, Map.of(
+                        "save", args -> args[0],
+                        "transitionStatus", args -> 1,
+                        "findByIdAndProjectId", args -> Optional.of(resource))),
+                stub(ProjectRepository.class, Map.of(
+                        "findById", args -> Optional.of(project),
+                        "reserveStorage", args -> 1,
+                        "releaseStorage", args -> 1)),
+                stub(UserRepository.class, Map.of(
+                        "findById", args -> Optional.of(user))),
+                stub(ContentBlobRepository.class, Map.of(
+                        "findBySha256WithLock", args -> Optional.empty(),
+                        "save", args -> args[0])),
+                new ContentTypeDetector(new Tika(), new ContentDetectionProperties(), storageMetrics,
+                        "application/octet-stream"),
+                new InlineTransactionTemplate(),
+                null,
+                new LocalObjectCache(directReads()),
+                metadataLookupService,
+                new PresignedUrlCache(0, 1, new SimpleMeterRegistry()),
+                null,
+                storageMetrics);
+
+        set("maxFileSize", 500_000_000L);
+        set("blockedExtensionsString", "exe,bat,cmd,sh");
+        set("presignedUrlExpirySeconds", 3600);
+        set("uuidSubstringLength", 8);
+        set("pendingTimeoutMinutes", 1440L);
+        set("bulkDeleteMaxResources", 1000);
+        try {
+            var init = FileStorageService.class.getDeclaredMethod("init");
+            init.setAccessible(true);
+            init.invoke(service);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void set(String name, Object value) {
+        try {
+            Field field = FileStorageService.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(service, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Implements a repository interface with the given answers by method name; any other
+     * call fails, so a benchmark never silently measures a missing stub.
+     */
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> type.getSimpleName() + " stub";
+                        };
+                    }
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                }));
+    }
+
+    /**
+     * Downloads read the in-memory store directly rather than through a shared spool file.
+     */
+    private static ObjectCacheProperties directReads() {
+        ObjectCacheProperties properties = new ObjectCacheProperties();
+        properties.setMaxSpoolBytes(0);
+        return properties;
+    }
+
+    private static final class InlineTransactionTemplate extends TransactionTemplate {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+            return action.doInTransaction(null);
+        }
+    }
+
+    /**
+     * Object store stand-in holding whole objects in memory.
+     */
+    static final class InMemoryObjectStore implements ObjectStore {
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+        @Override
+        public String put(String key, InputStream content, long size, String contentType) throws IOException {
+            objects.put(key, content.readAllBytes());
+            return null;
+        }
+
+        @Override
+        public InputStream get(String key, long offset, Long length) throws IOException {
+            byte[] object = objects.get(key);
+            if (object == null) {
+                throw new IOException("No such object: " + key);
+            }
+            int end = length != null ? (int) Math.min(object.length, offset + length) : object.length;
+            return new ByteArrayInputStream(object, (int) offset, end - (int) offset);
+        }
+
+        @Override
+        public void delete(String key) {
+            objects.remove(key);
+        }
+
+        @Override
+        public Map<String, String> deleteAll(Collection<String> keys) {
+            keys.forEach(objects::remove);
+            return Map.of();
+        }
+
+        @Override
+        public String presign(String key, int expirySeconds) {
+            return "https://objects.example.com/" + key + "?expires=" + expirySeconds;
+        }
+
+        void clear() {
+            objects.clear();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ContentDetectionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tika.Tika;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content detection plus the transfer that follows it, for a spooled upload on disk.
+ * {@code twoPasses} is the earlier approach: Tika opens its own stream over the file and
+ * the transfer opens another. {@code boundedHead} detects from the head of the stream that
+ * is transferred, and {@code trustedType} takes an allowlisted client type without
+ * reading. Each benchmark drains the content the way the object store would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentDetectionBenchmark {
+
+    @Param({"65536", "16777216"})
+    public int size;
+
+    private final Tika tika = new Tika();
+    private ContentTypeDetector detector;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        detector = new ContentTypeDetector(tika, new ContentDetectionProperties(),
+                new StorageMetrics(new SimpleMeterRegistry()), "application/octet-stream");
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        // JPEG start-of-image marker, so magic detection has something to find
+        content[0] = (byte) 0xFF;
+        content[1] = (byte) 0xD8;
+        content[2] = (byte) 0xFF;
+        file = Files.createTempFile("content-detection", ".jpg");
+        Files.write(file, content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long twoPasses() throws IOException {
+        String contentType;
+        try (InputStream detection = new BufferedInputStream(Files.newInputStream(file))) {
+            contentType = tika.detect(detection);
+        }
+        try (InputStream transfer = Files.newInputStream(file)) {
+            return transfer.transferTo(OutputStream.nullOutputStream()) + contentType.length();
+        }
+    }
+
+    @Benchmark
+    public long boundedHead() throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            ContentTypeDetector.Detection detection = detector.detect(content, "photo.jpg", null);
+            return detection.prepend(content).transferTo(OutputStream.nullOutputStream())
+                    + detection.contentType().length();
+        }
+    }
+
+    @Benchmark
+    public long trustedType() throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            ContentTypeDetector.Detection detection = detector.detect(content, "photo.jpg", "image/jpeg");
+            return detection.prepend(content).transferTo(OutputStream.nullOutputStream())
+                    + detection.contentType().length();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.filestorage.service;
+
+import com.filestorage.dto.ResourceResponse;
+import com.filestorage.model.ResourceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.AccessDeniedException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request helpers of {@link FileStorageService}, each called once or more on every
+ * upload, download or listing. The {@code regex*} benchmarks keep the earlier
+ * {@code replaceAll}/{@code String.format} key generation as a baseline; run with
+ * {@code -Pjmh.profilers=gc} to compare allocations per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileStorageServiceBenchmark {
+
+    @Param({"report.pdf", "Quarterly Report (final) v2 \u2014 \u043a\u043e\u043f\u0438\u044f.PDF"})
+    public String fileName;
+
+    @Param({"application/pdf", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"})
+    public String contentType;
+
+    private BenchmarkFixtures fixtures;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures();
+    }
+
+    @Benchmark
+    public String generateStorageKey() {
+        return fixtures.service.generateStorageKey(BenchmarkFixtures.PROJECT_ID, fileName);
+    }
+
+    @Benchmark
+    public String sanitizeFileName() {
+        return fixtures.service.sanitizeFileName(fileName);
+    }
+
+    @Benchmark
+    public String regexGenerateStorageKey() {
+        return String.format("project-%d/%s-%s-%s", BenchmarkFixtures.PROJECT_ID,
+                String.valueOf(Instant.now().toEpochMilli()), UUID.randomUUID().toString().substring(0, 8),
+                regexSanitizeFileName());
+    }
+
+    @Benchmark
+    public String regexSanitizeFileName() {
+        return fileName.replaceAll("[^a-zA-Z0-9.-]", "_")
+                .replaceAll("_{2,}", "_")
+                .toLowerCase();
+    }
+
+    @Benchmark
+    public String getFileExtension() {
+        return fixtures.service.getFileExtension(fileName);
+    }
+
+    @Benchmark
+    public ResourceType getResourceType() {
+        return ResourceType.getResourceType(contentType);
+    }
+
+    @Benchmark
+    public ResourceResponse toResponse() {
+        return ResourceResponse.from(fixtures.resource);
+    }
+
+    @Benchmark
+    public Object validateAccess() throws AccessDeniedException {
+        fixtures.service.validateAccess(fixtures.resource, BenchmarkFixtures.USER_ID);
+        return fixtures.resource;
+    }
+}
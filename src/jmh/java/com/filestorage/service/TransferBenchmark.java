@@ -0,0 +1,77 @@
+package com.filestorage.service;
+
+import com.filestorage.dto.FileDownloadResponse;
+import com.filestorage.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end upload and download through {@link FileStorageService} against an in-memory
+ * object store, so the numbers cover validation, content detection, hashing, key
+ * generation and access checks but no network. Multiply ops/s by {@code size} for
+ * bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    @Param({"4096", "1048576", "16777216"})
+    public int size;
+
+    private BenchmarkFixtures fixtures;
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        fixtures = new BenchmarkFixtures();
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        content[0] = '%';
+        content[1] = 'P';
+        content[2] = 'D';
+        content[3] = 'F';
+        fixtures.objectStore.put(BenchmarkFixtures.RESOURCE_KEY, new ByteArrayInputStream(content), size, null);
+    }
+
+    @Setup(Level.Iteration)
+    public void dropUploads() throws IOException {
+        fixtures.objectStore.clear();
+        fixtures.objectStore.put(BenchmarkFixtures.RESOURCE_KEY, new ByteArrayInputStream(content), size, null);
+    }
+
+    @Benchmark
+    public Resource upload() {
+        return fixtures.service.uploadStream(new ByteArrayInputStream(content), "report.pdf", "application/pdf",
+                size, BenchmarkFixtures.PROJECT_ID, BenchmarkFixtures.USER_ID, null);
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        FileDownloadResponse download = fixtures.service.downloadFile(
+                BenchmarkFixtures.RESOURCE_ID, BenchmarkFixtures.PROJECT_ID, BenchmarkFixtures.USER_ID);
+        try (InputStream body = download.getInputStream()) {
+            return body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
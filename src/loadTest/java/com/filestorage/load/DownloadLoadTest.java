@@ -0,0 +1,159 @@
+package com.filestorage.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many slow downloads an instance sustains and how responsive it stays
+ * meanwhile. {@code slowClients} connections download a resource at
+ * {@code bytesPerSecond} each, holding a server thread per download for as long as the
+ * transfer lasts; a probe request lists the project every 500ms and its latency shows
+ * whether requests still get a thread. Run once against an instance with
+ * {@code file-storage.virtual-threads.enabled=false} and once with {@code true}.
+ * <p>
+ * Settings are {@code load.*} system properties: {@code baseUrl}, {@code projectId},
+ * {@code resourceId}, {@code userId}, {@code slowClients}, {@code bytesPerSecond} and
+ * {@code durationSeconds}.
+ */
+public final class DownloadLoadTest {
+    private static final int READ_SIZE = 8 * 1024;
+    private static final long PROBE_INTERVAL_MILLIS = 500;
+
+    private DownloadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.baseUrl", "http://localhost:8080");
+        long projectId = Long.getLong("load.projectId", 1L);
+        long resourceId = Long.getLong("load.resourceId", 1L);
+        long userId = Long.getLong("load.userId", 1L);
+        int slowClients = Integer.getInteger("load.slowClients", 400);
+        int bytesPerSecond = Integer.getInteger("load.bytesPerSecond", 64 * 1024);
+        long durationMillis = TimeUnit.SECONDS.toMillis(Long.getLong("load.durationSeconds", 60L));
+
+        URI download = URI.create(String.format("%s/api/v1/projects/%d/resources/%d/download",
+                baseUrl, projectId, resourceId));
+        URI probe = URI.create(String.format("%s/api/v1/projects/%d/resources?size=1", baseUrl, projectId));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        long deadline = System.currentTimeMillis() + durationMillis;
+
+        System.out.printf("%d slow clients at %d B/s against %s for %ds%n",
+                slowClients, bytesPerSecond, baseUrl, durationMillis / 1000);
+
+        ExecutorService clients = Executors.newFixedThreadPool(slowClients);
+        for (int i = 0; i < slowClients; i++) {
+            clients.execute(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    active.incrementAndGet();
+                    try {
+                        bytes.addAndGet(slowDownload(client, download, userId, bytesPerSecond, deadline));
+                        completed.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        List<Long> probeMillis = new ArrayList<>();
+        int probeFailures = 0;
+        while (System.currentTimeMillis() < deadline) {
+            long started = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(
+                        HttpRequest.newBuilder(probe)
+                                .header("x-user-id", String.valueOf(userId))
+                                .timeout(Duration.ofSeconds(30))
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    probeFailures++;
+                }
+                probeMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } catch (IOException e) {
+                probeFailures++;
+            }
+            System.out.printf("in flight %4d | completed %6d | failed %5d | last probe %5d ms%n",
+                    active.get(), completed.get(), failed.get(),
+                    probeMillis.isEmpty() ? -1 : probeMillis.get(probeMillis.size() - 1));
+            Thread.sleep(PROBE_INTERVAL_MILLIS);
+        }
+
+        clients.shutdownNow();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+
+        Collections.sort(probeMillis);
+        System.out.printf("%nDownloads: %d completed, %d failed, %d MB transferred%n",
+                completed.get(), failed.get(), bytes.get() / (1024 * 1024));
+        System.out.printf("Probe latency: p50 %d ms, p99 %d ms, max %d ms, %d failed%n",
+                percentile(probeMillis, 0.50), percentile(probeMillis, 0.99),
+                percentile(probeMillis, 1.0), probeFailures);
+    }
+
+    /**
+     * Downloads the resource no faster than {@code bytesPerSecond}, stopping at the
+     * deadline, and returns the number of bytes read.
+     */
+    private static long slowDownload(HttpClient client, URI uri, long userId, int bytesPerSecond, long deadline)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(
+                HttpRequest.newBuilder(uri)
+                        .header("x-user-id", String.valueOf(userId))
+                        .build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() >= 400) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode());
+        }
+
+        long read = 0;
+        long started = System.nanoTime();
+        byte[] buffer = new byte[READ_SIZE];
+        try (InputStream body = response.body()) {
+            int n;
+            while (System.currentTimeMillis() < deadline && (n = body.read(buffer)) != -1) {
+                read += n;
+                long dueNanos = read * 1_000_000_000L / bytesPerSecond;
+                long aheadNanos = dueNanos - (System.nanoTime() - started);
+                if (aheadNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                }
+            }
+        }
+        return read;
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
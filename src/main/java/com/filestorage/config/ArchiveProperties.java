@@ -0,0 +1,15 @@
+package com.filestorage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "file-storage.archive")
+public class ArchiveProperties {
+    private int maxResources = 500;
+    // Objects opened ahead of the entry being written, which is not counted; 0 disables prefetching
+    private int prefetch = 4;
+    private int prefetchThreads = 16;
+}
@@ -0,0 +1,17 @@
+package com.filestorage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "file-storage.content-detection")
+public class ContentDetectionProperties {
+    private int headSize = 8192;
+    private List<String> trustedTypes = new ArrayList<>(List.of(
+            "video/mp4", "video/quicktime", "audio/mpeg", "image/jpeg", "image/png"));
+}
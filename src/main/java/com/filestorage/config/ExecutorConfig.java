@@ -0,0 +1,43 @@
+package com.filestorage.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Transfers the files of one bulk upload in parallel. The pool is shared by all bulk
+     * requests, so its size bounds the number of concurrent bulk transfers to MinIO.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService bulkUploadExecutor(
+            @Value("${file-storage.bulk-upload-concurrency}") int concurrency) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-upload-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the next objects of ZIP archive downloads while the current one is written.
+     * Only the requests are started ahead; each prefetched stream holds a MinIO connection
+     * until the archive reaches it.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService archivePrefetchExecutor(ArchiveProperties properties) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(properties.getPrefetchThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "archive-prefetch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.filestorage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "file-storage.filesystem")
+public class FileSystemStoreProperties {
+    private String root = "./data/objects";
+    private boolean fsync = true;
+    private String publicUrl = "http://localhost:8080";
+    private String signingKey;
+}
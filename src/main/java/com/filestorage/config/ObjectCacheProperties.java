@@ -0,0 +1,18 @@
+package com.filestorage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "file-storage.object-cache")
+public class ObjectCacheProperties {
+    private boolean enabled = false;
+    private String directory = System.getProperty("java.io.tmpdir") + "/file-storage-cache";
+    private long maxBytes = 1024L * 1024 * 1024;
+    private long maxObjectSize = 64L * 1024 * 1024;
+    // Spool files of shared fetches, which run with the cache disabled too; 0 disables sharing
+    private long maxSpoolBytes = 256L * 1024 * 1024;
+    private int fetchThreads = 8;
+}
@@ -0,0 +1,14 @@
+package com.filestorage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "file-storage.object-sweeper")
+public class ObjectSweeperProperties {
+    private int batchSize = 1000;
+    private long retryBackoffMillis = 30_000;
+    private long maxRetryBackoffMillis = 3_600_000;
+}
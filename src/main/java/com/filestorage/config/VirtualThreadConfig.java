@@ -0,0 +1,80 @@
+package com.filestorage.config;
+
+import com.filestorage.service.MinioObjectStore;
+import com.filestorage.service.OffloadingObjectStore;
+import com.filestorage.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in virtual-thread mode ({@code file-storage.virtual-threads.enabled}, Java 21).
+ * Tomcat request handling and the {@code StreamingResponseBody} writers of downloads and
+ * archives run on virtual threads, so a slow client holds a cheap virtual thread instead
+ * of one of Tomcat's 200 platform threads.
+ * <p>
+ * Calls into the MinIO SDK are moved to a pool of {@code storage-call-threads} platform
+ * threads, because the SDK and OkHttp block on the network while holding monitors and
+ * would pin the carrier threads. Run with {@code -Djdk.tracePinnedThreads=short} to
+ * find other pinning sites.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "file-storage.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final ExecutorService virtualThreadExecutor = VirtualThreads.newPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+    }
+
+    /**
+     * Wraps the MinIO object store so its calls run on platform threads. Static, as
+     * post-processors are created before the rest of the configuration.
+     */
+    @Bean
+    public static BeanPostProcessor minioObjectStoreOffloader(Environment environment) {
+        int threads = environment.getProperty(
+                "file-storage.virtual-threads.storage-call-threads", Integer.class, 200);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof MinioObjectStore)) {
+                    return bean;
+                }
+                AtomicInteger threadCounter = new AtomicInteger();
+                ExecutorService storageCallExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "storage-call-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                return new OffloadingObjectStore((MinioObjectStore) bean, storageCallExecutor);
+            }
+        };
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        virtualThreadExecutor.shutdownNow();
+    }
+}
@@ -1,6 +1,7 @@
 package com.filestorage.config.minio;
 
 import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import io.minio.errors.ErrorResponseException;
 import lombok.RequiredArgsConstructor;
@@ -48,6 +49,16 @@ public class MinioConfig {
 
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public MultipartMinioClient multipartMinioClient() {
+        MinioAsyncClient asyncClient = MinioAsyncClient.builder()
+                .endpoint(minioProperties.getEndpoint())
+                .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
+                .build();
+        return new MultipartMinioClient(asyncClient, minioProperties.getRegion());
+    }
+
     private void createBucketIfNotExist(MinioClient minioClient) {
         try {
             minioClient.makeBucket(
@@ -0,0 +1,66 @@
+package com.filestorage.config.minio;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+
+import java.io.RandomAccessFile;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exposes the low-level S3 multipart calls that {@link MinioAsyncClient} keeps protected,
+ * so parts can be uploaded independently, retried one by one and the upload aborted on failure.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    private final String region;
+
+    public MultipartMinioClient(MinioAsyncClient client, String region) {
+        super(client);
+        this.region = region;
+    }
+
+    public CompletableFuture<String> createMultipartUpload(String bucket, String key, String contentType)
+            throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUploadAsync(bucket, region, key, headers, noParams())
+                .thenApply(response -> response.result().uploadId());
+    }
+
+    public CompletableFuture<Part> uploadPart(String bucket, String key, String uploadId,
+                                              int partNumber, byte[] data, int length) throws Exception {
+        return uploadPartAsync(bucket, region, key, data, length, uploadId, partNumber, noParams(), noParams())
+                .thenApply(response -> new Part(partNumber, response.etag()));
+    }
+
+    /**
+     * Uploads {@code length} bytes of {@code file} from its current position. Unlike a stream,
+     * which the client copies into memory to sign it, a file is hashed and sent from disk.
+     */
+    public CompletableFuture<Part> uploadPart(String bucket, String key, String uploadId,
+                                              int partNumber, RandomAccessFile file, long length) throws Exception {
+        return uploadPartAsync(bucket, region, key, file, length, uploadId, partNumber, noParams(), noParams())
+                .thenApply(response -> new Part(partNumber, response.etag()));
+    }
+
+    public CompletableFuture<ObjectWriteResponse> completeMultipartUpload(String bucket, String key,
+                                                                        String uploadId, Part[] parts)
+            throws Exception {
+        return completeMultipartUploadAsync(bucket, region, key, uploadId, parts, noParams(), noParams());
+    }
+
+    public CompletableFuture<Void> abortMultipartUpload(String bucket, String key, String uploadId)
+            throws Exception {
+        return abortMultipartUploadAsync(bucket, region, key, uploadId, noParams(), noParams())
+                .thenApply(response -> null);
+    }
+
+    private static Multimap<String, String> noParams() {
+        return HashMultimap.create();
+    }
+}
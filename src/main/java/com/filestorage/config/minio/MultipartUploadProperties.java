@@ -0,0 +1,24 @@
+package com.filestorage.config.minio;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Component
+@ConfigurationProperties(prefix = "file-storage.multipart")
+public class MultipartUploadProperties {
+    private boolean enabled = true;
+    private long threshold = 64L * 1024 * 1024;
+    // S3 rejects multipart parts other than the last one below 5 MiB
+    @Min(5 * 1024 * 1024)
+    private int partSize = 16 * 1024 * 1024;
+    private int concurrency = 4;
+    private long memoryBudget = 64L * 1024 * 1024;
+    private int maxPartRetries = 3;
+    private long retryBackoffMillis = 200;
+    private int executorThreads = 16;
+}
@@ -0,0 +1,47 @@
+package com.filestorage.controller;
+
+import com.filestorage.exception.ResourceNotFoundException;
+import com.filestorage.service.FileSystemObjectStore;
+import com.filestorage.service.LocalObjectCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.AccessDeniedException;
+
+/**
+ * Serves the presigned URLs of the filesystem object store, which has no HTTP endpoint
+ * of its own. Requests carry no user; the signature is the only credential.
+ */
+@RestController
+@RequestMapping("/api/v1/objects")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file-storage.object-store", havingValue = "filesystem")
+public class ObjectLinkController {
+
+    private final FileSystemObjectStore objectStore;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> download(
+            @RequestParam String key,
+            @RequestParam long expires,
+            @RequestParam String signature) throws AccessDeniedException {
+
+        if (!objectStore.verify(key, expires, signature)) {
+            throw new AccessDeniedException("Download link is invalid or has expired");
+        }
+        LocalObjectCache.CachedObject object = objectStore.findLocal(key)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format("Object %s not found", key)));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(object.size())
+                .body(outputStream -> object.transferTo(0, object.size(), outputStream));
+    }
+}
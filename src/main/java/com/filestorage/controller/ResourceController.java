@@ -1,22 +1,37 @@
 package com.filestorage.controller;
 
+import com.filestorage.dto.BulkDeleteRequest;
+import com.filestorage.dto.BulkDeleteResponse;
+import com.filestorage.dto.CursorPage;
 import com.filestorage.dto.FileDownloadResponse;
+import com.filestorage.dto.PresignedUrlBatchRequest;
+import com.filestorage.dto.PresignedUrlResponse;
 import com.filestorage.dto.ResourceDto;
 import com.filestorage.dto.ResourceResponse;
-import com.filestorage.dto.ResourceUploadStatus;
 import com.filestorage.model.Resource;
+import com.filestorage.model.ResourceType;
 import com.filestorage.model.UserRole;
+import com.filestorage.service.ArchiveService;
 import com.filestorage.service.FileStorageService;
+import com.filestorage.service.LocalObjectCache;
+import com.filestorage.service.StorageMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
@@ -24,16 +39,28 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @RestController
@@ -43,11 +70,23 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class ResourceController {
 
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    private static final String CONTENT_MD5 = "Content-MD5";
+    private static final String DIGEST = "Digest";
+
     private final FileStorageService fileStorageService;
+    private final ArchiveService archiveService;
+    private final StorageMetrics storageMetrics;
 
     @Value("${file-storage.presigned-url-expiry-seconds}")
     private int presignedUrlExpirySeconds;
 
+    @Value("${file-storage.presigned-url-batch-max-ids}")
+    private int presignedUrlBatchMaxIds;
+
     @Value("${file-storage.bulk-upload-max-files}")
     private int bulkUploadMaxFiles;
 
@@ -66,30 +105,76 @@ public class ResourceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(ResourceResponse.from(resource));
     }
 
+    @PostMapping(value = "/stream", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<ResourceResponse> uploadFileStream(
+            @PathVariable Long projectId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(required = false) Set<UserRole> allowedRoles,
+            @RequestHeader("x-user-id") Long userId,
+            @RequestHeader(value = CONTENT_MD5, required = false) String contentMd5,
+            HttpServletRequest request) throws IOException {
+
+        long contentLength = request.getContentLengthLong();
+        log.info("Stream upload request: project={}, file={}, size={}", projectId, fileName, contentLength);
+
+        Resource resource = fileStorageService.uploadStream(
+                request.getInputStream(), fileName, request.getContentType(), contentLength,
+                projectId, userId, allowedRoles, contentMd5);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(ResourceResponse.from(resource));
+    }
+
+    /**
+     * Downloads a file. Supports conditional requests ({@code If-None-Match},
+     * {@code If-Modified-Since}), which are answered with 304 without touching MinIO,
+     * and byte ranges: a single range is served as 206 with {@code Content-Range},
+     * several ranges as {@code multipart/byteranges}. {@code If-Range} falls back to
+     * the full content when the validator no longer matches.
+     */
     @GetMapping("/{resourceId}/download")
     public ResponseEntity<StreamingResponseBody> downloadFile(
             @PathVariable Long projectId,
             @PathVariable Long resourceId,
-            @RequestHeader("x-user-id") Long userId) throws AccessDeniedException {
+            @RequestHeader("x-user-id") Long userId,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletRequest request) throws AccessDeniedException {
         
-        FileDownloadResponse download = fileStorageService.downloadFile(
+        FileDownloadResponse download = fileStorageService.describeDownload(
                 resourceId, projectId, userId);
-        
+        long lastModified = download.getLastModified() != null ? download.getLastModified().toEpochMilli() : -1;
+
+        if (isNotModified(requestHeaders, download)) {
+            ResponseEntity.HeadersBuilder<?> notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(download.getEtag());
+            if (lastModified >= 0) {
+                notModified.lastModified(lastModified);
+            }
+            return notModified.build();
+        }
+
+        long size = download.getSize() != null ? download.getSize() : 0L;
+        List<HttpRange> ranges = requestedRanges(requestHeaders, download);
+        if (!ranges.isEmpty() && size > 0) {
+            return downloadRanges(download, ranges, size, request);
+        }
+
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(download.getContentType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + download.getFileName() + "\"");
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + download.getFileName() + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(download.getEtag());
+        if (lastModified >= 0) {
+            responseBuilder.lastModified(lastModified);
+        }
+        if (download.getDigest() != null) {
+            responseBuilder.header(DIGEST, download.getDigest());
+        }
         
         if (download.getSize() != null && download.getSize() > 0) {
             responseBuilder.contentLength(download.getSize());
         }
         
-        StreamingResponseBody stream = outputStream -> {
-            try (var inputStream = download.getInputStream()) {
-                inputStream.transferTo(outputStream);
-            }
-        };
-        
-        return responseBuilder.body(stream);
+        return responseBuilder.body(objectBody(download, 0, null, request));
     }
 
     @GetMapping("/{resourceId}/url")
@@ -102,6 +187,20 @@ public class ResourceController {
         return ResponseEntity.ok(Map.of("url", url, "expiresIn", presignedUrlExpirySeconds));
     }
 
+    @PostMapping("/urls")
+    public ResponseEntity<List<PresignedUrlResponse>> getDownloadUrls(
+            @PathVariable Long projectId,
+            @Valid @RequestBody PresignedUrlBatchRequest request,
+            @RequestHeader("x-user-id") Long userId) {
+
+        if (request.getResourceIds().size() > presignedUrlBatchMaxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Maximum %d download URLs can be requested at once", presignedUrlBatchMaxIds));
+        }
+
+        return ResponseEntity.ok(fileStorageService.generatePresignedUrls(request.getResourceIds(), projectId, userId));
+    }
+
     @DeleteMapping("/{resourceId}")
     public ResponseEntity<Void> deleteFile(
             @PathVariable Long projectId,
@@ -115,6 +214,19 @@ public class ResourceController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<BulkDeleteResponse> deleteFiles(
+            @PathVariable Long projectId,
+            @Valid @RequestBody BulkDeleteRequest request,
+            @RequestHeader("x-user-id") Long userId) throws AccessDeniedException {
+
+        log.info("Bulk delete request: project={}, ids={}, type={}, createdBy={}, olderThan={}, user={}",
+                projectId, request.getResourceIds() != null ? request.getResourceIds().size() : 0,
+                request.getType(), request.getCreatedBy(), request.getOlderThan(), userId);
+
+        return ResponseEntity.ok(fileStorageService.deleteFiles(request, projectId, userId));
+    }
+
     @GetMapping
     public ResponseEntity<Page<ResourceDto>> getProjectFiles(
             @PathVariable Long projectId,
@@ -131,6 +243,45 @@ public class ResourceController {
         return ResponseEntity.ok(resources);
     }
 
+    /**
+     * Cursor-paginated listing for clients that walk a whole project: pass the
+     * {@code nextCursor} of one page as {@code cursor} to get the next one.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<ResourceDto>> getProjectFilesByCursor(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(1000) int size,
+            @RequestHeader("x-user-id") Long userId) {
+
+        return ResponseEntity.ok(fileStorageService.getProjectFiles(projectId, userId, cursor, size));
+    }
+
+    /**
+     * Streams the selected resources as one ZIP archive, by {@code ids} or by filter.
+     * Access is checked for all of them before the first byte is sent.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) ResourceType type,
+            @RequestParam(required = false) Long createdBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime olderThan,
+            @RequestHeader("x-user-id") Long userId) throws AccessDeniedException {
+
+        List<ArchiveService.ArchiveEntry> entries = archiveService.prepareArchive(
+                projectId, userId, ids, type, createdBy, olderThan);
+        log.info("Archive request: project={}, resources={}, user={}", projectId, entries.size(), userId);
+
+        StreamingResponseBody body = outputStream -> archiveService.writeArchive(entries, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"project-" + projectId + "-resources.zip\"")
+                .body(body);
+    }
+
     @PostMapping("/bulk")
     public ResponseEntity<List<ResourceResponse>> uploadMultipleFiles(
             @PathVariable Long projectId,
@@ -145,25 +296,193 @@ public class ResourceController {
                     String.format("Maximum %d files can be uploaded at once", bulkUploadMaxFiles));
         }
 
-        List<ResourceResponse> responses = new ArrayList<>();
+        List<ResourceResponse> responses = fileStorageService.uploadFiles(files, projectId, userId, allowedRoles);
+        return ResponseEntity.ok(responses);
+    }
+
+    /**
+     * If-None-Match takes precedence over If-Modified-Since (RFC 9110, section 13.2.2);
+     * entity tags are compared weakly as required for If-None-Match.
+     */
+    private static boolean isNotModified(HttpHeaders requestHeaders, FileDownloadResponse download) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = stripWeakPrefix(download.getEtag());
+            return ifNoneMatch.stream()
+                    .map(String::trim)
+                    .anyMatch(tag -> "*".equals(tag) || stripWeakPrefix(tag).equals(etag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && download.getLastModified() != null
+                && download.getLastModified().getEpochSecond() * 1000 <= ifModifiedSince;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag != null && etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
 
-        for (MultipartFile file : files) {
+    private List<HttpRange> requestedRanges(HttpHeaders requestHeaders, FileDownloadResponse download) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(download.getEtag())) {
+            long ifRangeDate = parseHttpDate(ifRange);
+            if (ifRangeDate < 0 || download.getLastModified() == null
+                    || download.getLastModified().getEpochSecond() * 1000 != ifRangeDate) {
+                return List.of();
+            }
+        }
+        try {
+            return requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            // A malformed Range header is ignored and the full content is served
+            log.debug("Ignoring invalid Range header: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> downloadRanges(
+            FileDownloadResponse download, List<HttpRange> ranges, long size, HttpServletRequest request) {
+        List<long[]> satisfiable = new ArrayList<>(ranges.size());
+        for (HttpRange range : ranges) {
             try {
-                Resource resource = fileStorageService.uploadFile(
-                        file, projectId, userId, allowedRoles);
-
-                responses.add(ResourceResponse.from(resource, ResourceUploadStatus.SUCCESS));
-
-            } catch (Exception e) {
-                log.error("Failed to upload file: {}", file.getOriginalFilename(), e);
-                responses.add(ResourceResponse.builder()
-                        .name(file.getOriginalFilename())
-                        .status(ResourceUploadStatus.FAILED)
-                        .error(e.getMessage())
-                        .build());
+                satisfiable.add(new long[]{range.getRangeStart(size), range.getRangeEnd(size)});
+            } catch (IllegalArgumentException e) {
+                // Unsatisfiable ranges are skipped as long as another range can be served (RFC 9110, section 14.2)
+                log.debug("Skipping unsatisfiable range {}: {}", range, e.getMessage());
             }
         }
-        return ResponseEntity.ok(responses);
+        if (satisfiable.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        long[][] bounds = coalesceRanges(satisfiable);
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + download.getFileName() + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(download.getEtag());
+        if (download.getLastModified() != null) {
+            responseBuilder.lastModified(download.getLastModified());
+        }
+
+        if (bounds.length == 1) {
+            long start = bounds[0][0];
+            long length = bounds[0][1] - start + 1;
+            return responseBuilder
+                    .contentType(MediaType.parseMediaType(download.getContentType()))
+                    .header(HttpHeaders.CONTENT_RANGE, contentRange(start, bounds[0][1], size))
+                    .contentLength(length)
+                    .body(objectBody(download, start, length, request));
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        StreamingResponseBody stream = outputStream -> {
+            for (long[] range : bounds) {
+                String partHeaders = "\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + download.getContentType() + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range[0], range[1], size) + "\r\n\r\n";
+                outputStream.write(partHeaders.getBytes(StandardCharsets.US_ASCII));
+                try (var inputStream = fileStorageService.openObject(download.getKey(), range[0],
+                        range[1] - range[0] + 1, ResourceType.getResourceType(download.getContentType()))) {
+                    inputStream.transferTo(outputStream);
+                }
+            }
+            outputStream.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        };
+        return responseBuilder
+                .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                .body(stream);
+    }
+
+    /**
+     * Merges overlapping or adjacent ranges so that no byte is sent twice (RFC 9110, section 14.2).
+     * Ranges that do not need merging keep the order in which they were requested.
+     */
+    private static long[][] coalesceRanges(List<long[]> ranges) {
+        List<long[]> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>(sorted.size());
+        for (long[] range : sorted) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new long[]{range[0], range[1]});
+            }
+        }
+        return (merged.size() == ranges.size() ? ranges : merged).toArray(long[][]::new);
     }
 
+    /**
+     * Builds the body for {@code length} bytes of the object starting at {@code offset}
+     * ({@code length == null} meaning the whole object). Objects available as a local file,
+     * from the filesystem object store or the local object cache, are handed to Tomcat's
+     * sendfile support when the connector offers it, which leaves the body to the container
+     * and returns {@code null}; a cache entry is passed as a link of its own, so that
+     * evicting it before Tomcat opens the file cannot fail the download. Without sendfile a
+     * local file is opened here, before the response is committed, and copied through the
+     * servlet stream; an entry evicted meanwhile stays readable through the open channel.
+     * Everything else, including a local file that could not be opened, is read from the
+     * object store, a whole object through a fetch shared with concurrent downloads of it,
+     * also opened before the response is committed so that storage errors still map to an
+     * error status.
+     */
+    private StreamingResponseBody objectBody(FileDownloadResponse download, long offset, Long length,
+                                             HttpServletRequest request) {
+        ResourceType type = ResourceType.getResourceType(download.getContentType());
+        Optional<LocalObjectCache.CachedObject> local = fileStorageService.findLocalObject(download.getKey());
+        if (local.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            LocalObjectCache.CachedObject object = local.get();
+            Optional<Path> file = fileStorageService.pinLocalObject(object);
+            if (file.isPresent()) {
+                long count = length != null ? length : object.size() - offset;
+                request.setAttribute(SENDFILE_FILENAME_ATTR, file.get().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTR, offset);
+                request.setAttribute(SENDFILE_END_ATTR, offset + count);
+                return null;
+            }
+        }
+
+        FileChannel channel = local.map(object -> openLocalQuietly(object, download.getKey())).orElse(null);
+        if (channel != null) {
+            LocalObjectCache.CachedObject object = local.get();
+            long count = length != null ? length : object.size() - offset;
+            return outputStream -> {
+                try (channel; StorageMetrics.Transfer transfer = storageMetrics.startDownload(type)) {
+                    object.transferTo(channel, offset, count, outputStream);
+                    transfer.transferred(count);
+                }
+            };
+        }
+
+        InputStream content = length == null && offset == 0
+                ? fileStorageService.openWholeObject(download.getKey(), download.getSize(), type)
+                : fileStorageService.openObject(download.getKey(), offset, length, type);
+        return outputStream -> {
+            try (var inputStream = content) {
+                inputStream.transferTo(outputStream);
+            }
+        };
+    }
+
+    private static FileChannel openLocalQuietly(LocalObjectCache.CachedObject object, String key) {
+        try {
+            return object.openChannel();
+        } catch (IOException e) {
+            log.debug("Local copy of {} is gone, reading from the object store: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String contentRange(long start, long end, long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    private static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
 }
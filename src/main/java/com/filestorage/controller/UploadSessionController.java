@@ -0,0 +1,104 @@
+package com.filestorage.controller;
+
+import com.filestorage.dto.CreateUploadSessionRequest;
+import com.filestorage.dto.ResourceResponse;
+import com.filestorage.dto.UploadChunkResponse;
+import com.filestorage.dto.UploadSessionResponse;
+import com.filestorage.model.Resource;
+import com.filestorage.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/projects/{projectId}/resources/uploads")
+@Slf4j
+@Validated
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file-storage.object-store", havingValue = "minio", matchIfMissing = true)
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> createSession(
+            @PathVariable Long projectId,
+            @Valid @RequestBody CreateUploadSessionRequest request,
+            @RequestHeader("x-user-id") Long userId) {
+
+        log.info("Upload session request: project={}, file={}, size={}",
+                projectId, request.getFileName(), request.getTotalSize());
+
+        UploadSessionResponse session = uploadSessionService.createSession(request, projectId, userId);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+
+    @PutMapping(value = "/{uploadId}/chunks/{chunkNumber}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<UploadChunkResponse> uploadChunk(
+            @PathVariable Long projectId,
+            @PathVariable String uploadId,
+            @PathVariable int chunkNumber,
+            @RequestHeader("x-user-id") Long userId,
+            @RequestHeader(value = "Content-MD5", required = false) String contentMd5,
+            InputStream body,
+            HttpServletRequest request) {
+
+        UploadChunkResponse chunk = uploadSessionService.uploadChunk(
+                uploadId, chunkNumber, body, request.getContentLengthLong(), contentMd5, projectId, userId);
+
+        return ResponseEntity.ok(chunk);
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getSession(
+            @PathVariable Long projectId,
+            @PathVariable String uploadId,
+            @RequestHeader("x-user-id") Long userId) {
+
+        return ResponseEntity.ok(uploadSessionService.getSession(uploadId, projectId, userId));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ResourceResponse> commitSession(
+            @PathVariable Long projectId,
+            @PathVariable String uploadId,
+            @RequestHeader("x-user-id") Long userId) {
+
+        log.info("Commit upload session: project={}, upload={}", projectId, uploadId);
+
+        Resource resource = uploadSessionService.commitSession(uploadId, projectId, userId);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(ResourceResponse.from(resource));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortSession(
+            @PathVariable Long projectId,
+            @PathVariable String uploadId,
+            @RequestHeader("x-user-id") Long userId) {
+
+        log.info("Abort upload session: project={}, upload={}", projectId, uploadId);
+
+        uploadSessionService.abortSession(uploadId, projectId, userId);
+
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.filestorage.dto;
+
+import com.filestorage.model.ResourceType;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selects the resources of a bulk delete, either by id or by filter. When ids are given
+ * the filter narrows them further, ids it excludes being reported as skipped; without ids
+ * at least one filter field is required.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteRequest {
+    private List<@NotNull(message = "Resource id cannot be null") Long> resourceIds;
+
+    private ResourceType type;
+
+    private Long createdBy;
+
+    private LocalDateTime olderThan;
+
+    public boolean hasFilter() {
+        return type != null || createdBy != null || olderThan != null;
+    }
+}
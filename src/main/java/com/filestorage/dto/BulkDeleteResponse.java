@@ -0,0 +1,18 @@
+package com.filestorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResponse {
+    private int deleted;
+    private List<Long> skipped;
+    private boolean hasMore;
+}
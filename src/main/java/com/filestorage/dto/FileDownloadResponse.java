@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.io.InputStream;
+import java.time.Instant;
 
 @Data
 @Builder
@@ -11,5 +12,10 @@ public class FileDownloadResponse {
     private String fileName;
     private String contentType;
     private Long size;
+    private String key;
+    private String etag;
+    // Value of the Digest header, null when no checksums were recorded for the content
+    private String digest;
+    private Instant lastModified;
     private InputStream inputStream;
 }
@@ -0,0 +1,19 @@
+package com.filestorage.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUrlBatchRequest {
+    @NotEmpty(message = "At least one resource id is required")
+    private List<@NotNull(message = "Resource id cannot be null") Long> resourceIds;
+}
@@ -0,0 +1,17 @@
+package com.filestorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUrlResponse {
+    private Long resourceId;
+    private String url;
+    private Integer expiresIn;
+    private String error;
+}
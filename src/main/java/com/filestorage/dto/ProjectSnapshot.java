@@ -0,0 +1,11 @@
+package com.filestorage.dto;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Immutable view of a project's metadata. Current usage is deliberately left out: it
+ * changes with every upload and is only ever checked by the atomic reservation.
+ */
+public record ProjectSnapshot(Long id, String name, BigInteger maxStorageSize) implements Serializable {
+}
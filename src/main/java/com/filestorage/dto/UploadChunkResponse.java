@@ -0,0 +1,17 @@
+package com.filestorage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadChunkResponse {
+    private String uploadId;
+    private Integer chunkNumber;
+    private Long size;
+    private String etag;
+}
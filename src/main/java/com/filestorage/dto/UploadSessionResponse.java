@@ -0,0 +1,42 @@
+package com.filestorage.dto;
+
+import com.filestorage.model.UploadSession;
+import com.filestorage.model.UploadSessionChunk;
+import com.filestorage.model.UploadSessionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String uploadId;
+    private String fileName;
+    private Integer chunkSize;
+    private Long totalSize;
+    private UploadSessionStatus status;
+    private List<Integer> receivedChunks;
+    private Long receivedBytes;
+    private Long resourceId;
+    private LocalDateTime expiresAt;
+
+    public static UploadSessionResponse from(UploadSession session, List<UploadSessionChunk> chunks) {
+        return UploadSessionResponse.builder()
+                .uploadId(session.getId())
+                .fileName(session.getFileName())
+                .chunkSize(session.getChunkSize())
+                .totalSize(session.getTotalSize())
+                .status(session.getStatus())
+                .receivedChunks(chunks.stream().map(UploadSessionChunk::getChunkNumber).toList())
+                .receivedBytes(chunks.stream().mapToLong(UploadSessionChunk::getSize).sum())
+                .resourceId(session.getResourceId())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
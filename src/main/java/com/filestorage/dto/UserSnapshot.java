@@ -0,0 +1,21 @@
+package com.filestorage.dto;
+
+import com.filestorage.model.UserRole;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Immutable view of a user for access checks, safe to keep in a cache across
+ * transactions unlike the {@code User} entity.
+ */
+public record UserSnapshot(Long id, String nickname, int rolesMask) implements Serializable {
+
+    public List<UserRole> roles() {
+        return UserRole.fromMask(rolesMask);
+    }
+
+    public boolean hasAnyRole(int mask) {
+        return (rolesMask & mask) != 0;
+    }
+}
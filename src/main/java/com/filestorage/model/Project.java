@@ -1,7 +1,9 @@
 package com.filestorage.model;
 
+import com.filestorage.service.MetadataCacheInvalidator;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -21,6 +23,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "project")
+@EntityListeners(MetadataCacheInvalidator.class)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -6,11 +6,14 @@ import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
@@ -19,6 +22,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -54,6 +58,10 @@ public class Resource {
     @Enumerated(EnumType.STRING)
     private List<UserRole> allowedRoles;
 
+    // UserRole.toMask(allowedRoles), so access checks do not load the collection
+    @Column(name = "allowed_roles_mask", nullable = false)
+    private int allowedRolesMask;
+
     @Enumerated(EnumType.STRING)
     private ResourceType type;
 
@@ -81,4 +89,16 @@ public class Resource {
     @ManyToOne
     @JoinColumn(name = "project_id")
     private Project project;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_id")
+    private ContentBlob blob;
+
+    @PrePersist
+    @PreUpdate
+    private void syncAllowedRolesMask() {
+        if (allowedRoles != null && Hibernate.isInitialized(allowedRoles)) {
+            allowedRolesMask = UserRole.toMask(allowedRoles);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.filestorage.model;
 
 public enum ResourceStatus {
+    PENDING,
     ACTIVE,
     INACTIVE,
     DELETED
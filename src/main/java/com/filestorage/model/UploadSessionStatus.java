@@ -0,0 +1,8 @@
+package com.filestorage.model;
+
+public enum UploadSessionStatus {
+    ACTIVE,
+    COMPLETED,
+    ABORTED,
+    EXPIRED
+}
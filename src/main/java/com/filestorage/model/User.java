@@ -1,21 +1,26 @@
 package com.filestorage.model;
 
+import com.filestorage.service.MetadataCacheInvalidator;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 
 import java.util.List;
 
@@ -25,6 +30,7 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "app_user")
+@EntityListeners(MetadataCacheInvalidator.class)
 @Builder
 public class User {
     @Id
@@ -43,4 +49,16 @@ public class User {
     @Column(name = "role")
     @Enumerated(EnumType.STRING)
     private List<UserRole> roles;
+
+    // UserRole.toMask(roles); kept current by a trigger on user_roles as well
+    @Column(name = "roles_mask", nullable = false)
+    private int rolesMask;
+
+    @PrePersist
+    @PreUpdate
+    private void syncRolesMask() {
+        if (roles != null && Hibernate.isInitialized(roles)) {
+            rolesMask = UserRole.toMask(roles);
+        }
+    }
 }
@@ -1,7 +1,12 @@
 package com.filestorage.model;
 
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Project roles. Each role owns bit {@code 1 << ordinal()} in the role masks stored on
+ * {@code app_user} and {@code resource}, so new roles must only ever be appended.
+ */
 public enum UserRole {
     OWNER,
     MANAGER,
@@ -14,4 +19,24 @@ public enum UserRole {
     public static List<UserRole> getAll() {
         return List.of(UserRole.values());
     }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<UserRole> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (UserRole role : roles) {
+                mask |= role.bit();
+            }
+        }
+        return mask;
+    }
+
+    public static List<UserRole> fromMask(int mask) {
+        return getAll().stream()
+                .filter(role -> (mask & role.bit()) != 0)
+                .toList();
+    }
 }
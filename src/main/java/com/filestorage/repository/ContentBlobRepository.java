@@ -0,0 +1,21 @@
+package com.filestorage.repository;
+
+import com.filestorage.model.ContentBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ContentBlob b WHERE b.sha256 = :sha256")
+    Optional<ContentBlob> findBySha256WithLock(@Param("sha256") String sha256);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ContentBlob b WHERE b.id = :id")
+    Optional<ContentBlob> findByIdWithLock(@Param("id") Long id);
+}
@@ -0,0 +1,30 @@
+package com.filestorage.repository;
+
+import com.filestorage.model.ObjectTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ObjectTombstoneRepository extends JpaRepository<ObjectTombstone, Long> {
+
+    @Query("SELECT t FROM ObjectTombstone t WHERE t.nextAttemptAt <= :now ORDER BY t.nextAttemptAt, t.id")
+    List<ObjectTombstone> findDue(
+            @Param("now") LocalDateTime now,
+            Pageable limit
+    );
+
+    @Modifying
+    @Query("INSERT INTO ObjectTombstone (key, attempts, nextAttemptAt) "
+            + "SELECT r.key, 0, :now FROM Resource r "
+            + "WHERE r.id IN :resourceIds AND r.blob IS NULL AND r.key IS NOT NULL")
+    int insertForResources(
+            @Param("resourceIds") Collection<Long> resourceIds,
+            @Param("now") LocalDateTime now
+    );
+}
@@ -1,25 +1,82 @@
 package com.filestorage.repository;
 
+import com.filestorage.dto.ProjectSnapshot;
 import com.filestorage.model.Project;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigInteger;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
-    
+
+    @Query("SELECT new com.filestorage.dto.ProjectSnapshot(p.id, p.name, p.maxStorageSize) FROM Project p WHERE p.id = :id")
+    Optional<ProjectSnapshot> findSnapshotById(@Param("id") Long id);
+
+    /**
+     * Atomically adds {@code delta} bytes to the project's storage size if the result stays
+     * within its quota. Returns 0 when the reservation would exceed the quota.
+     */
     @Modifying
-    @Query("UPDATE Project p SET p.storageSize = :size WHERE p.id = :id")
-    int updateStorageSize(
+    @Query("UPDATE Project p SET p.storageSize = COALESCE(p.storageSize, 0) + :delta " +
+            "WHERE p.id = :id AND COALESCE(p.storageSize, 0) + :delta <= p.maxStorageSize")
+    int reserveStorage(
+            @Param("id") Long id,
+            @Param("delta") BigInteger delta
+    );
+
+    @Modifying
+    @Query("UPDATE Project p SET p.storageSize = " +
+            "CASE WHEN p.storageSize > :delta THEN p.storageSize - :delta ELSE 0 END " +
+            "WHERE p.id = :id")
+    int releaseStorage(
             @Param("id") Long id,
-            @Param("size") java.math.BigInteger size
+            @Param("delta") BigInteger delta
     );
 
+    /**
+     * Loads the project and locks its row until commit. Reservations and releases update
+     * the same row, so none of them can commit in between while it is held.
+     */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT p FROM Project p WHERE p.id = :id")
     Optional<Project> findByIdWithLock(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Project p SET p.storageSize = :size WHERE p.id = :id")
+    int updateStorageSize(
+            @Param("id") Long id,
+            @Param("size") BigInteger size
+    );
+
+    /**
+     * Recorded storage size next to the actual sum of active and pending resource sizes and
+     * the quota held by active upload sessions for the next {@code pageable.getPageSize()}
+     * projects after {@code afterId}, read in one statement so all values come from the same
+     * snapshot. The sums are answered from {@code idx_resource_project_status_size} and
+     * {@code idx_upload_session_project_status} without visiting the rows.
+     */
+    @Query("SELECT p.id AS projectId, p.storageSize AS recordedSize, " +
+            "(SELECT COALESCE(SUM(r.size), 0) FROM Resource r " +
+            "WHERE r.project.id = p.id AND r.status IN ('ACTIVE', 'PENDING')) AS actualSize, " +
+            "(SELECT COALESCE(SUM(s.reservedSize), 0) FROM UploadSession s " +
+            "WHERE s.projectId = p.id AND s.status = 'ACTIVE') AS sessionReservedSize " +
+            "FROM Project p WHERE p.id > :afterId ORDER BY p.id")
+    List<StorageUsage> findStorageUsage(@Param("afterId") Long afterId, Pageable pageable);
+
+    interface StorageUsage {
+        Long getProjectId();
+
+        BigInteger getRecordedSize();
+
+        BigInteger getActualSize();
+
+        Long getSessionReservedSize();
+    }
 }
@@ -1,7 +1,10 @@
 package com.filestorage.repository;
 
+import com.filestorage.dto.ResourceDto;
 import com.filestorage.model.Resource;
 import com.filestorage.model.ResourceStatus;
+import com.filestorage.model.ResourceType;
+import com.filestorage.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,30 +12,123 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ResourceRepository extends JpaRepository<Resource, Long> {
 
-    @Query("SELECT r FROM Resource r WHERE r.project.id = :projectId AND r.status = :status")
-    Page<Resource> findByProjectIdAndStatus(
+    // Listings select straight into ResourceDto: one statement per page instead of
+    // loading each row's eager associations (creator, editor, project) one by one
+    String LISTING_SELECT = "SELECT new com.filestorage.dto.ResourceDto("
+            + "r.id, r.name, CAST(r.size AS Long), r.type, r.contentType, u.nickname, r.createdAt) "
+            + "FROM Resource r LEFT JOIN r.createdBy u ";
+
+    @Query(value = LISTING_SELECT + "WHERE r.project.id = :projectId AND r.status = :status",
+            countQuery = "SELECT COUNT(r) FROM Resource r WHERE r.project.id = :projectId AND r.status = :status")
+    Page<ResourceDto> findListing(
             @Param("projectId") Long projectId,
             @Param("status") ResourceStatus status,
             Pageable pageable
     );
 
+    @Query(LISTING_SELECT + "WHERE r.project.id = :projectId AND r.status = :status "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ResourceDto> findListingPage(
+            @Param("projectId") Long projectId,
+            @Param("status") ResourceStatus status,
+            Pageable limit
+    );
+
+    @Query(LISTING_SELECT + "WHERE r.project.id = :projectId AND r.status = :status "
+            + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ResourceDto> findListingPageAfter(
+            @Param("projectId") Long projectId,
+            @Param("status") ResourceStatus status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable limit
+    );
+
     List<Resource> findByProjectIdAndCreatedById(Long projectId, Long memberId);
 
     Optional<Resource> findByKey(String key);
 
+    List<Resource> findByStatusAndUpdatedAtBefore(ResourceStatus status, LocalDateTime cutoff);
+
     @Query("SELECT r FROM Resource r WHERE r.id = :resourceId AND r.project.id = :projectId")
     Optional<Resource> findByIdAndProjectId(
             @Param("resourceId") Long resourceId,
             @Param("projectId") Long projectId
     );
 
-    @Query("SELECT SUM(r.size) FROM Resource r WHERE r.project.id = :projectId AND r.status = 'ACTIVE'")
-    Long calculateProjectStorageSize(@Param("projectId") Long projectId);
+    // Only the columns needed to sign a URL, so a batch does not load creators and editors
+    @Query("SELECT r.id AS id, r.key AS objectKey, r.status AS status, r.allowedRolesMask AS allowedRolesMask "
+            + "FROM Resource r WHERE r.id IN :ids AND r.project.id = :projectId")
+    List<ObjectAccess> findObjectAccess(
+            @Param("ids") Collection<Long> ids,
+            @Param("projectId") Long projectId
+    );
+
+    String ARCHIVE_ENTRY_SELECT = "SELECT r.id AS id, r.name AS name, r.key AS objectKey, r.size AS objectSize, "
+            + "r.type AS resourceType, r.status AS status, r.allowedRolesMask AS allowedRolesMask FROM Resource r ";
+
+    @Query(ARCHIVE_ENTRY_SELECT + "WHERE r.id IN :ids AND r.project.id = :projectId")
+    List<ArchiveCandidate> findArchiveCandidates(
+            @Param("ids") Collection<Long> ids,
+            @Param("projectId") Long projectId
+    );
+
+    @Query(ARCHIVE_ENTRY_SELECT + "WHERE r.project.id = :projectId AND r.status = :status "
+            + "AND (:type IS NULL OR r.type = :type) "
+            + "AND (:createdBy IS NULL OR r.createdBy.id = :createdBy) "
+            + "AND (:olderThan IS NULL OR r.createdAt < :olderThan) "
+            + "ORDER BY r.id")
+    List<ArchiveCandidate> findArchiveCandidatesByFilter(
+            @Param("projectId") Long projectId,
+            @Param("status") ResourceStatus status,
+            @Param("type") ResourceType type,
+            @Param("createdBy") Long createdBy,
+            @Param("olderThan") LocalDateTime olderThan,
+            Pageable limit
+    );
+
+    String DELETION_CANDIDATE_SELECT = "SELECT r.id AS id, r.key AS objectKey, r.size AS objectSize, "
+            + "r.status AS status, r.type AS resourceType, r.createdAt AS createdAt, r.createdBy.id AS createdById, "
+            + "r.blob.id AS blobId FROM Resource r ";
+
+    @Query(DELETION_CANDIDATE_SELECT + "WHERE r.id IN :ids AND r.project.id = :projectId")
+    List<DeletionCandidate> findDeletionCandidates(
+            @Param("ids") Collection<Long> ids,
+            @Param("projectId") Long projectId
+    );
+
+    @Query(DELETION_CANDIDATE_SELECT + "WHERE r.project.id = :projectId AND r.status = :status "
+            + "AND (:type IS NULL OR r.type = :type) "
+            + "AND (:createdBy IS NULL OR r.createdBy.id = :createdBy) "
+            + "AND (:olderThan IS NULL OR r.createdAt < :olderThan) "
+            + "ORDER BY r.id")
+    List<DeletionCandidate> findDeletionCandidatesByFilter(
+            @Param("projectId") Long projectId,
+            @Param("status") ResourceStatus status,
+            @Param("type") ResourceType type,
+            @Param("createdBy") Long createdBy,
+            @Param("olderThan") LocalDateTime olderThan,
+            Pageable limit
+    );
+
+    @Modifying
+    @Query("UPDATE Resource r SET r.status = :status, r.key = NULL, r.blob = NULL, r.size = 0, "
+            + "r.updatedBy = :updatedBy, r.updatedAt = :updatedAt WHERE r.id IN :ids")
+    int markDeleted(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") ResourceStatus status,
+            @Param("updatedBy") User updatedBy,
+            @Param("updatedAt") LocalDateTime updatedAt
+    );
 
     @Modifying
     @Query("UPDATE Resource r SET r.status = :status WHERE r.id = :id")
@@ -40,4 +136,69 @@ public interface ResourceRepository extends JpaRepository<Resource, Long> {
             @Param("id") Long id,
             @Param("status") ResourceStatus status
     );
+
+    /**
+     * Moves a resource from {@code expected} to {@code status}, returning 0 if it is no
+     * longer in {@code expected}. The row stays locked until commit, so the transition
+     * decides between an upload finishing and the same upload being expired.
+     */
+    @Modifying
+    @Query("UPDATE Resource r SET r.status = :status WHERE r.id = :id AND r.status = :expected")
+    int transitionStatus(
+            @Param("id") Long id,
+            @Param("expected") ResourceStatus expected,
+            @Param("status") ResourceStatus status
+    );
+
+    /**
+     * Sum of the sizes of the project's active and pending resources, which is what its
+     * storage size should record; {@code null} when it has none.
+     */
+    @Query("SELECT SUM(r.size) FROM Resource r "
+            + "WHERE r.project.id = :projectId AND r.status IN ('ACTIVE', 'PENDING')")
+    BigInteger sumStorageSize(@Param("projectId") Long projectId);
+
+    interface ObjectAccess {
+        Long getId();
+
+        String getObjectKey();
+
+        ResourceStatus getStatus();
+
+        Integer getAllowedRolesMask();
+    }
+
+    interface DeletionCandidate {
+        Long getId();
+
+        String getObjectKey();
+
+        BigInteger getObjectSize();
+
+        ResourceStatus getStatus();
+
+        ResourceType getResourceType();
+
+        LocalDateTime getCreatedAt();
+
+        Long getCreatedById();
+
+        Long getBlobId();
+    }
+
+    interface ArchiveCandidate {
+        Long getId();
+
+        String getName();
+
+        String getObjectKey();
+
+        BigInteger getObjectSize();
+
+        ResourceType getResourceType();
+
+        ResourceStatus getStatus();
+
+        Integer getAllowedRolesMask();
+    }
 }
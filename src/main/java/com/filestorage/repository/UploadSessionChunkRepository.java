@@ -0,0 +1,33 @@
+package com.filestorage.repository;
+
+import com.filestorage.model.UploadSessionChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface UploadSessionChunkRepository extends JpaRepository<UploadSessionChunk, Long> {
+
+    List<UploadSessionChunk> findBySessionIdOrderByChunkNumber(String sessionId);
+
+    /**
+     * Records a chunk, replacing the part recorded for the same chunk number, in one
+     * statement so that concurrent uploads of a chunk cannot both try to insert it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO upload_session_chunk (session_id, chunk_number, etag, size, uploaded_at) " +
+            "VALUES (:sessionId, :chunkNumber, :etag, :size, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (session_id, chunk_number) DO UPDATE " +
+            "SET etag = EXCLUDED.etag, size = EXCLUDED.size, uploaded_at = EXCLUDED.uploaded_at",
+            nativeQuery = true)
+    int upsertChunk(
+            @Param("sessionId") String sessionId,
+            @Param("chunkNumber") int chunkNumber,
+            @Param("etag") String etag,
+            @Param("size") long size
+    );
+}
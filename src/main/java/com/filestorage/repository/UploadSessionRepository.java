@@ -0,0 +1,44 @@
+package com.filestorage.repository;
+
+import com.filestorage.model.UploadSession;
+import com.filestorage.model.UploadSessionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :sessionId AND s.projectId = :projectId")
+    Optional<UploadSession> findByIdAndProjectId(
+            @Param("sessionId") String sessionId,
+            @Param("projectId") Long projectId
+    );
+
+    List<UploadSession> findByStatusAndExpiresAtBefore(UploadSessionStatus status, LocalDateTime expiresAt);
+
+    /**
+     * Moves a session from {@code expected} to {@code status} and returns 0 if it was no
+     * longer in {@code expected}; this decides between a commit, an abort and an expiry of
+     * the same session, so that only one of them settles its reservation.
+     */
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = :status WHERE s.id = :id AND s.status = :expected")
+    int transitionStatus(
+            @Param("id") String id,
+            @Param("expected") UploadSessionStatus expected,
+            @Param("status") UploadSessionStatus status
+    );
+
+    /**
+     * Quota held by the project's active sessions, which its storage size includes next
+     * to its resources.
+     */
+    @Query("SELECT COALESCE(SUM(s.reservedSize), 0) FROM UploadSession s "
+            + "WHERE s.projectId = :projectId AND s.status = 'ACTIVE'")
+    long sumReservedSize(@Param("projectId") Long projectId);
+}
@@ -1,10 +1,16 @@
 package com.filestorage.repository;
 
+import com.filestorage.dto.UserSnapshot;
 import com.filestorage.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT new com.filestorage.dto.UserSnapshot(u.id, u.nickname, u.rolesMask) FROM User u WHERE u.id = :id")
+    Optional<UserSnapshot> findSnapshotById(@Param("id") Long id);
 }
@@ -0,0 +1,218 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ArchiveProperties;
+import com.filestorage.dto.UserSnapshot;
+import com.filestorage.exception.ResourceNotFoundException;
+import com.filestorage.model.ResourceStatus;
+import com.filestorage.model.ResourceType;
+import com.filestorage.repository.ResourceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AccessDeniedException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams several resources as one ZIP archive built on the fly. Entries are written with
+ * data descriptors, so no object is ever buffered or read twice; while one entry is
+ * written the next objects are already being opened on a small pool.
+ * <p>
+ * Already-compressed types are written without compression. The ZIP STORED method needs
+ * each entry's CRC before its data, which would mean reading every object twice, so they
+ * are deflated at level 0 instead: stored blocks with a few bytes of framing and no
+ * compression work.
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+    private static final Set<ResourceType> COMPRESSED_TYPES =
+            EnumSet.of(ResourceType.IMAGE, ResourceType.VIDEO, ResourceType.ZIP);
+
+    private final ResourceRepository resourceRepository;
+    private final MetadataLookupService metadataLookupService;
+    private final FileStorageService fileStorageService;
+    private final ExecutorService prefetchExecutor;
+    private final ArchiveProperties properties;
+
+    public ArchiveService(ResourceRepository resourceRepository,
+                          MetadataLookupService metadataLookupService,
+                          FileStorageService fileStorageService,
+                          @Qualifier("archivePrefetchExecutor") ExecutorService prefetchExecutor,
+                          ArchiveProperties properties) {
+        this.resourceRepository = resourceRepository;
+        this.metadataLookupService = metadataLookupService;
+        this.fileStorageService = fileStorageService;
+        this.prefetchExecutor = prefetchExecutor;
+        this.properties = properties;
+    }
+
+    /**
+     * Resolves and authorizes the content of an archive before anything is streamed.
+     * Explicit ids must all exist and be readable by the user; a filter silently leaves
+     * out what the user cannot read.
+     */
+    public List<ArchiveEntry> prepareArchive(Long projectId, Long userId, List<Long> resourceIds,
+                                             ResourceType type, Long createdBy, LocalDateTime olderThan)
+            throws AccessDeniedException {
+        boolean byIds = resourceIds != null && !resourceIds.isEmpty();
+        boolean byFilter = type != null || createdBy != null || olderThan != null;
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Either resource ids or a filter (type, createdBy, olderThan) is required");
+        }
+        int maxResources = properties.getMaxResources();
+        if (byIds && resourceIds.size() > maxResources) {
+            throw new IllegalArgumentException(
+                    String.format("Maximum %d resources can be archived at once", maxResources));
+        }
+
+        UserSnapshot user = metadataLookupService.getUser(userId);
+        metadataLookupService.getProject(projectId);
+
+        List<ResourceRepository.ArchiveCandidate> candidates;
+        if (byIds) {
+            Map<Long, ResourceRepository.ArchiveCandidate> loaded = resourceRepository
+                    .findArchiveCandidates(Set.copyOf(resourceIds), projectId).stream()
+                    .collect(Collectors.toMap(ResourceRepository.ArchiveCandidate::getId, candidate -> candidate));
+            candidates = new ArrayList<>();
+            for (Long resourceId : new LinkedHashSet<>(resourceIds)) {
+                ResourceRepository.ArchiveCandidate candidate = loaded.get(resourceId);
+                if (candidate == null || candidate.getStatus() != ResourceStatus.ACTIVE) {
+                    throw new ResourceNotFoundException(
+                            String.format("Resource %d not found or doesn't belong to project %d",
+                                    resourceId, projectId));
+                }
+                if (!user.hasAnyRole(candidate.getAllowedRolesMask())) {
+                    throw new AccessDeniedException(
+                            String.format("User %d does not have permission to access resource %d in project %d",
+                                    userId, resourceId, projectId));
+                }
+                candidates.add(candidate);
+            }
+        } else {
+            candidates = resourceRepository.findArchiveCandidatesByFilter(
+                    projectId, ResourceStatus.ACTIVE, type, createdBy, olderThan,
+                    PageRequest.of(0, maxResources + 1));
+            if (candidates.size() > maxResources) {
+                throw new IllegalArgumentException(String.format(
+                        "Filter matches more than %d resources, narrow it down", maxResources));
+            }
+            candidates = candidates.stream()
+                    .filter(candidate -> user.hasAnyRole(candidate.getAllowedRolesMask()))
+                    .toList();
+            if (candidates.isEmpty()) {
+                throw new ResourceNotFoundException(
+                        String.format("No readable resources match the filter in project %d", projectId));
+            }
+        }
+
+        Map<String, Integer> usedNames = new HashMap<>();
+        return candidates.stream()
+                .map(candidate -> new ArchiveEntry(
+                        candidate.getId(),
+                        uniqueEntryName(candidate.getName(), usedNames),
+                        candidate.getObjectKey(),
+                        candidate.getObjectSize() != null ? candidate.getObjectSize().longValue() : null,
+                        candidate.getResourceType()))
+                .toList();
+    }
+
+    /**
+     * Writes the archive to {@code outputStream}. The caller owns the stream; it is
+     * finished but not closed. If writing fails halfway, every object opened ahead is
+     * closed and the truncated archive is left for the client to reject.
+     */
+    public void writeArchive(List<ArchiveEntry> entries, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Deque<CompletableFuture<InputStream>> opened = new ArrayDeque<>();
+        int nextToOpen = 0;
+        try {
+            for (ArchiveEntry entry : entries) {
+                // The head of the queue is the entry about to be written; prefetch counts
+                // only the objects opened behind it, so 0 opens each object just in time
+                while (nextToOpen < entries.size() && opened.size() <= properties.getPrefetch()) {
+                    opened.addLast(open(entries.get(nextToOpen++)));
+                }
+
+                try (InputStream content = await(opened.removeFirst(), entry)) {
+                    zip.setLevel(COMPRESSED_TYPES.contains(entry.type())
+                            ? Deflater.NO_COMPRESSION
+                            : Deflater.DEFAULT_COMPRESSION);
+                    zip.putNextEntry(new ZipEntry(entry.name()));
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+            zip.finish();
+            zip.flush();
+            log.info("Streamed archive of {} resources", entries.size());
+        } finally {
+            opened.forEach(future -> future.thenAccept(ArchiveService::closeQuietly));
+        }
+    }
+
+    private CompletableFuture<InputStream> open(ArchiveEntry entry) {
+        return CompletableFuture.supplyAsync(
+                () -> fileStorageService.openWholeObject(entry.key(), entry.size(), entry.type()), prefetchExecutor);
+    }
+
+    private static InputStream await(CompletableFuture<InputStream> future, ArchiveEntry entry) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IOException(String.format("Failed to open resource %d for the archive", entry.resourceId()),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Turns a resource name into a flat entry name that is unique within the archive, so
+     * extraction can neither overwrite a sibling nor escape the target directory.
+     */
+    private static String uniqueEntryName(String name, Map<String, Integer> usedNames) {
+        String flat = name == null || name.isBlank() ? "file" : name.replaceAll("[/\\\\]", "_");
+        if (flat.equals(".") || flat.equals("..")) {
+            flat = "_" + flat;
+        }
+        int seen = usedNames.merge(flat, 1, Integer::sum);
+        if (seen == 1) {
+            return flat;
+        }
+        int dot = flat.lastIndexOf('.');
+        String candidate = dot > 0
+                ? String.format("%s (%d)%s", flat.substring(0, dot), seen - 1, flat.substring(dot))
+                : String.format("%s (%d)", flat, seen - 1);
+        return uniqueEntryName(candidate, usedNames);
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close prefetched object: {}", e.getMessage());
+        }
+    }
+
+    public record ArchiveEntry(Long resourceId, String name, String key, Long size, ResourceType type) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ContentDetectionProperties;
+import com.filestorage.model.ResourceType;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Detects the content type of an upload from the first {@code head-size} bytes of the
+ * stream that goes to the object store, so the content is read only once. The caller
+ * sends the captured head followed by the rest of the same stream, see
+ * {@link Detection#prepend}.
+ * <p>
+ * Uploads whose client {@code Content-Type} is one of {@code trusted-types} and matches
+ * the type registered for their file extension skip detection altogether and keep the
+ * client's type. Tika's magic detection is for catching names and headers that lie, and
+ * a pair that agrees on a media type is taken at its word.
+ */
+@Component
+public class ContentTypeDetector {
+    private static final byte[] NO_HEAD = new byte[0];
+
+    private final Tika tika;
+    private final int headSize;
+    private final Set<String> trustedTypes;
+    private final StorageMetrics storageMetrics;
+    private final String defaultContentType;
+
+    public ContentTypeDetector(
+            Tika tika,
+            ContentDetectionProperties properties,
+            StorageMetrics storageMetrics,
+            @Value("${file-storage.default-content-type}") String defaultContentType) {
+        this.tika = tika;
+        this.headSize = properties.getHeadSize();
+        this.trustedTypes = properties.getTrustedTypes().stream()
+                .map(type -> type.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.storageMetrics = storageMetrics;
+        this.defaultContentType = defaultContentType != null && !defaultContentType.isBlank()
+                ? defaultContentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    /**
+     * Reads up to {@code head-size} bytes of {@code content} and detects their type, or
+     * reads nothing when the client's type is trusted. {@code clientContentType} is also
+     * the fallback if detection fails.
+     */
+    public Detection detect(InputStream content, String fileName, String clientContentType) throws IOException {
+        long started = System.nanoTime();
+        String trusted = trustedType(fileName, clientContentType);
+        if (trusted != null) {
+            storageMetrics.record(StorageMetrics.CONTENT_TRUSTED, ResourceType.getResourceType(trusted), true, started);
+            return new Detection(trusted, NO_HEAD);
+        }
+
+        byte[] head = content.readNBytes(headSize);
+        String contentType;
+        boolean detected = false;
+        try {
+            contentType = tika.detect(new ByteArrayInputStream(head));
+            detected = true;
+        } catch (Exception e) {
+            contentType = clientContentType;
+        }
+        contentType = contentType != null && !contentType.isBlank() ? contentType : defaultContentType;
+        storageMetrics.record(StorageMetrics.CONTENT_DETECTION, ResourceType.getResourceType(contentType),
+                detected, started);
+        return new Detection(contentType, head);
+    }
+
+    private String trustedType(String fileName, String clientContentType) {
+        if (trustedTypes.isEmpty() || fileName == null || clientContentType == null) {
+            return null;
+        }
+        int parameters = clientContentType.indexOf(';');
+        String clientType = (parameters >= 0 ? clientContentType.substring(0, parameters) : clientContentType)
+                .trim().toLowerCase(Locale.ROOT);
+        if (!trustedTypes.contains(clientType)) {
+            return null;
+        }
+        // Name-based lookup in Tika's registry, no content is read
+        return clientType.equals(tika.detect(fileName)) ? clientType : null;
+    }
+
+    /**
+     * A detected content type and the bytes read to detect it.
+     */
+    public record Detection(String contentType, byte[] head) {
+
+        /**
+         * Returns the whole content again: the captured head followed by
+         * {@code remainder}, the stream the head was read from or one positioned after it.
+         */
+        public InputStream prepend(InputStream remainder) {
+            return head.length == 0 ? remainder : new SequenceInputStream(new ByteArrayInputStream(head), remainder);
+        }
+    }
+}
@@ -1,49 +1,69 @@
 package com.filestorage.service;
 
+import com.filestorage.dto.BulkDeleteRequest;
+import com.filestorage.dto.BulkDeleteResponse;
+import com.filestorage.dto.CursorPage;
 import com.filestorage.dto.FileDownloadResponse;
+import com.filestorage.dto.PresignedUrlResponse;
 import com.filestorage.dto.ResourceDto;
+import com.filestorage.dto.ResourceResponse;
+import com.filestorage.dto.ResourceUploadStatus;
+import com.filestorage.dto.UserSnapshot;
 import com.filestorage.exception.EntityNotFoundException;
 import com.filestorage.exception.ResourceNotFoundException;
 import com.filestorage.exception.StorageLimitExceededException;
+import com.filestorage.model.ContentBlob;
 import com.filestorage.model.Project;
 import com.filestorage.model.Resource;
 import com.filestorage.model.ResourceStatus;
 import com.filestorage.model.ResourceType;
 import com.filestorage.model.User;
 import com.filestorage.model.UserRole;
+import com.filestorage.repository.ContentBlobRepository;
 import com.filestorage.repository.ProjectRepository;
 import com.filestorage.repository.ResourceRepository;
 import com.filestorage.repository.UserRepository;
-import io.minio.GetObjectArgs;
-import io.minio.GetObjectResponse;
-import io.minio.GetPresignedObjectUrlArgs;
-import io.minio.MinioClient;
-import io.minio.PutObjectArgs;
-import io.minio.RemoveObjectArgs;
-import io.minio.http.Method;
+import com.filestorage.util.ContentChecksums;
+import com.filestorage.util.ResourceCursor;
+import com.filestorage.util.SizeLimitingInputStream;
+import com.filestorage.util.StorageKeys;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,19 +71,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FileStorageService {
     private static final long BYTES_PER_MB = 1_000_000L;
-    private static final String PROJECT_KEY_TEMPLATE = "project-%d/%s-%s-%s";
-    private static final String SANITIZE_PATTERN = "[^a-zA-Z0-9.-]";
-    private static final String SANITIZE_DUPLICATE_PATTERN = "_{2,}";
-    private static final String UNDERSCORE_REPLACEMENT = "_";
 
-    private final MinioClient minioClient;
+    private final ObjectStore objectStore;
     private final ResourceRepository resourceRepository;
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
-    private final Tika tika;
-
-    @Value("${minio.bucket-name}")
-    private String bucketName;
+    private final ContentBlobRepository contentBlobRepository;
+    private final ContentTypeDetector contentTypeDetector;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService bulkUploadExecutor;
+    private final LocalObjectCache objectCache;
+    private final MetadataLookupService metadataLookupService;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ObjectDeletionQueue objectDeletionQueue;
+    private final StorageMetrics storageMetrics;
 
     @Value("${file-storage.max-file-size}")
     private long maxFileSize;
@@ -77,8 +98,14 @@ public class FileStorageService {
     @Value("${file-storage.uuid-substring-length}")
     private int uuidSubstringLength;
 
-    @Value("${file-storage.default-content-type}")
-    private String defaultContentType;
+    @Value("${file-storage.quota.pending-timeout-minutes}")
+    private long pendingTimeoutMinutes;
+
+    @Value("${file-storage.bulk-delete-max-resources}")
+    private int bulkDeleteMaxResources;
+
+    @Value("${file-storage.verify-etag}")
+    private boolean verifyEtag;
 
     private Set<String> blockedExtensions;
     private long maxFileSizeMb;
@@ -91,83 +118,347 @@ public class FileStorageService {
         maxFileSizeMb = maxFileSize / BYTES_PER_MB;
     }
 
-    @Transactional
+    /**
+     * Uploads in three phases so that no database connection is held while bytes move:
+     * a short transaction reserves quota and inserts a PENDING row, the object is then
+     * transferred to the object store outside any transaction, and a second short
+     * transaction activates the row. A failure after the first phase is compensated.
+     */
     public Resource uploadFile(MultipartFile file, Long projectId, Long userId, Set<UserRole> allowedRoles) {
 
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be empty");
         }
 
-        validateFile(file);
+        storageMetrics.run(StorageMetrics.VALIDATION, null, () -> validateFile(file));
+
+        ContentTypeDetector.Detection detection = detectContentType(file);
+        String contentType = detection.contentType();
+        Resource pending = createPendingResource(file.getOriginalFilename(), file.getSize(), contentType,
+                projectId, userId, allowedRoles);
+        String key = pending.getKey();
+
+        boolean uploaded = false;
+        try {
+            ContentChecksums checksums = new ContentChecksums();
+            try (InputStream content = checksums.wrap(openContent(file, detection))) {
+                putObject(key, content, file.getSize(), contentType, checksums);
+            }
+            uploaded = true;
+
+            Resource resource = activateResource(pending, file.getSize(), false, checksums);
+
+            log.info("File uploaded successfully: {} for project {}", resource.getKey(), projectId);
+            return resource;
+
+        } catch (RuntimeException e) {
+            discardPendingResource(pending, key, file.getSize(), uploaded);
+            throw e;
+        } catch (Exception e) {
+            discardPendingResource(pending, key, file.getSize(), uploaded);
+            log.error("Error uploading file {} to project {}", file.getOriginalFilename(), projectId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    /**
+     * Uploads a raw request body without multipart spooling: the bytes are piped straight
+     * into the object store as they arrive and the size limit is enforced on the way.
+     * {@code contentLength} is {@code -1} when the client uses chunked transfer encoding,
+     * in which case quota is reserved once the actual size is known.
+     */
+    public Resource uploadStream(InputStream content, String fileName, String clientContentType, long contentLength,
+                                 Long projectId, Long userId, Set<UserRole> allowedRoles) {
+        return uploadStream(content, fileName, clientContentType, contentLength, projectId, userId, allowedRoles,
+                null);
+    }
+
+    /**
+     * Like {@link #uploadStream(InputStream, String, String, long, Long, Long, Set)}, checking
+     * the body against the client's {@code Content-MD5}. A body that does not match is
+     * removed again and never becomes a resource.
+     */
+    public Resource uploadStream(InputStream content, String fileName, String clientContentType, long contentLength,
+                                 Long projectId, Long userId, Set<UserRole> allowedRoles, String contentMd5) {
+
+        if (contentLength == 0) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+
+        String expectedMd5 = storageMetrics.time(StorageMetrics.VALIDATION, null, () -> {
+            validateFileName(fileName);
+            if (contentLength > 0) {
+                validateFileSize(contentLength);
+            }
+            return contentMd5 != null ? ContentChecksums.md5HexFromBase64(contentMd5) : null;
+        });
 
-        if (allowedRoles == null) {
-            allowedRoles = Set.of();
+        ContentTypeDetector.Detection detection;
+        try {
+            detection = contentTypeDetector.detect(content, fileName, clientContentType);
+        } catch (IOException e) {
+            log.error("Error reading stream {} for project {}", fileName, projectId, e);
+            throw new RuntimeException("Failed to upload file", e);
         }
+        String contentType = detection.contentType();
 
-        Project project = findProjectById(projectId);
-        validateStorageLimit(project, file.getSize());
+        // The head read for detection counts towards the limit and the hash like any other bytes
+        SizeLimitingInputStream limited = new SizeLimitingInputStream(detection.prepend(content), maxFileSize);
+        ContentChecksums checksums = new ContentChecksums();
+        InputStream digested = checksums.wrap(limited);
 
-        User user = findUserById(userId);
-        List<UserRole> userRoleList = getAllowedUserRoles(allowedRoles, user);
+        long reserved = Math.max(contentLength, 0L);
+        Resource pending = createPendingResource(fileName, reserved, contentType, projectId, userId, allowedRoles);
+        String key = pending.getKey();
 
+        boolean uploaded = false;
         try {
-            String key = generateStorageKey(projectId, file.getOriginalFilename());
-            uploadToMinio(file, key);
+            putObject(key, digested, contentLength, contentType, checksums);
+            uploaded = true;
 
-            String contentType = detectContentType(file);
-            Resource resource = buildResource(file, key, contentType, userRoleList, project, user);
+            long size = contentLength > 0 ? contentLength : limited.getBytesRead();
+            if (size == 0) {
+                throw new IllegalArgumentException("File cannot be empty");
+            }
+            if (expectedMd5 != null && !expectedMd5.equals(checksums.md5Hex())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Content-MD5 does not match the uploaded content");
+            }
 
-            resource = resourceRepository.save(resource);
-            updateProjectStorageSize(project.getId());
+            Resource resource = activateResource(pending, size, contentLength < 0, checksums);
 
-            log.info("File uploaded successfully: {} for project {}", key, projectId);
+            log.info("File streamed successfully: {} ({} bytes) for project {}", resource.getKey(), size, projectId);
             return resource;
 
-        } catch (RuntimeException e) {
-            throw e;
         } catch (Exception e) {
-            log.error("Error uploading file {} to project {}", file.getOriginalFilename(), projectId, e);
+            discardPendingResource(pending, key, reserved, uploaded);
+            if (hasCause(e, SizeLimitingInputStream.SizeLimitExceededException.class)) {
+                throw new ResponseStatusException(
+                        HttpStatus.PAYLOAD_TOO_LARGE,
+                        String.format("File exceeds maximum allowed size of %d MB (%d bytes)",
+                                maxFileSizeMb, maxFileSize));
+            }
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.error("Error streaming file {} to project {}", fileName, projectId, e);
             throw new RuntimeException("Failed to upload file", e);
         }
     }
 
+    /**
+     * Uploads several files at once. Quota for the whole batch is reserved and the PENDING
+     * rows inserted in one transaction, the transfers run in parallel on the bulk upload
+     * executor, and every transferred file is activated in one closing transaction.
+     * Results come back in request order; a failing file does not fail the batch.
+     */
+    public List<ResourceResponse> uploadFiles(List<MultipartFile> files, Long projectId, Long userId,
+                                              Set<UserRole> allowedRoles) {
+        ResourceResponse[] results = new ResourceResponse[files.size()];
+        Map<Integer, ContentTypeDetector.Detection> detections = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            try {
+                if (file.isEmpty()) {
+                    throw new IllegalArgumentException("File cannot be empty");
+                }
+                storageMetrics.run(StorageMetrics.VALIDATION, null, () -> validateFile(file));
+                detections.put(i, detectContentType(file));
+            } catch (RuntimeException e) {
+                results[i] = failedUpload(file, e);
+            }
+        }
+
+        Map<Integer, Resource> pending;
+        try {
+            pending = createPendingResources(files, detections, projectId, userId, allowedRoles, results);
+        } catch (RuntimeException e) {
+            detections.keySet().forEach(i -> results[i] = failedUpload(files.get(i), e));
+            return Arrays.asList(results);
+        }
+
+        Map<Integer, String> keys = new LinkedHashMap<>();
+        Map<Integer, Future<ContentChecksums>> transfers = new LinkedHashMap<>();
+        pending.forEach((i, resource) -> {
+            keys.put(i, resource.getKey());
+            transfers.put(i, bulkUploadExecutor.submit(() ->
+                    transferObject(files.get(i), detections.get(i), resource.getKey(), resource.getContentType())));
+        });
+
+        Map<Integer, ContentChecksums> digests = new LinkedHashMap<>();
+        List<Resource> failed = new ArrayList<>();
+        transfers.forEach((i, transfer) -> {
+            try {
+                digests.put(i, transfer.get());
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                results[i] = failedUpload(files.get(i), cause);
+                failed.add(pending.get(i));
+            }
+        });
+
+        try {
+            List<Resource> activated = activateResources(digests, pending, failed);
+            int next = 0;
+            for (Integer i : digests.keySet()) {
+                results[i] = ResourceResponse.from(activated.get(next++), ResourceUploadStatus.SUCCESS);
+            }
+        } catch (RuntimeException e) {
+            digests.keySet().forEach(i -> {
+                discardPendingResource(pending.get(i), keys.get(i), pending.get(i).getSize().longValue(), true);
+                results[i] = failedUpload(files.get(i), e);
+            });
+            failed.forEach(resource -> discardPendingResource(resource, resource.getKey(),
+                    resource.getSize().longValue(), false));
+        }
+
+        log.info("Bulk upload to project {}: {} of {} files stored", projectId, digests.size(), files.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Registers an object that is already complete in the object store (e.g. a committed
+     * upload session) as an active resource, applying the same role rules as a direct upload
+     * and pointing it at a content blob. The caller already holds the quota for
+     * {@code size}; it runs this through {@link #executeResolvingBlobs} together with
+     * whatever claims that quota. An object whose content was already stored is queued for
+     * removal in the same transaction.
+     */
+    @Transactional
+    public Resource registerUploadedObject(String key, String fileName, long size, String contentType,
+                                           Long projectId, Long userId, Set<UserRole> allowedRoles,
+                                           ContentChecksums checksums) {
+        validateFileSize(size);
+
+        Project project = findProjectById(projectId);
+        User user = findUserById(userId);
+        List<UserRole> userRoleList = getAllowedUserRoles(allowedRoles, user);
+
+        ContentBlob blob = resolveBlob(checksums, key, size);
+        Resource resource = buildResource(fileName, size, blob.getKey(), contentType, userRoleList, project, user);
+        resource.setBlob(blob);
+        resource = resourceRepository.save(resource);
+        if (!key.equals(blob.getKey())) {
+            objectDeletionQueue.enqueue(key);
+        }
+
+        log.info("Registered uploaded object {} ({} bytes) for project {}", key, size, projectId);
+        return resource;
+    }
+
+    @Transactional(readOnly = true)
     public FileDownloadResponse downloadFile(Long resourceId, Long projectId, Long userId) 
             throws AccessDeniedException {
+        FileDownloadResponse download = describeDownload(resourceId, projectId, userId);
+        download.setInputStream(openWholeObject(download.getKey(), download.getSize(),
+                ResourceType.getResourceType(download.getContentType())));
+        return download;
+    }
+
+    /**
+     * Checks access and returns everything needed to answer a download, including the
+     * validators for conditional requests, without touching MinIO. The caller opens the
+     * object (or a range of it) with {@link #openObject} only if a body is needed.
+     */
+    @Transactional(readOnly = true)
+    public FileDownloadResponse describeDownload(Long resourceId, Long projectId, Long userId)
+            throws AccessDeniedException {
         log.info("Downloading resource {} from project {} for user {}", resourceId, projectId, userId);
 
         Resource resource = findResourceByProjectId(resourceId, projectId);
         validateAccess(resource, userId);
+        validateActive(resource, projectId);
 
-        if (resource.getStatus() != ResourceStatus.ACTIVE) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    String.format(
-                            "Resource %d is not active (status: %s) in project %d",
-                            resourceId, resource.getStatus(), projectId));
+        return FileDownloadResponse.builder()
+                .fileName(resource.getName())
+                .size(resource.getSize() != null ? resource.getSize().longValue() : null)
+                .contentType(resource.getContentType())
+                .key(resource.getKey())
+                .etag(generateEtag(resource))
+                .digest(digestOf(resource))
+                .lastModified(lastModifiedOf(resource))
+                .build();
+    }
+
+    /**
+     * Opens a stored object, or the {@code length} bytes starting at {@code offset}
+     * when {@code length} is not {@code null}.
+     */
+    public InputStream openObject(String key, long offset, Long length) {
+        return openObject(key, offset, length, null);
+    }
+
+    /**
+     * Like {@link #openObject(String, long, Long)}, tagging the download metrics with the
+     * type of the resource being read.
+     */
+    public InputStream openObject(String key, long offset, Long length, ResourceType type) {
+        return readObject(key, offset, length, null, type);
+    }
+
+    /**
+     * Opens the whole of an object of {@code size} bytes. Concurrent reads of the same
+     * object share a single storage request (see {@link LocalObjectCache#fetch}); without a
+     * known size the object is read on its own.
+     */
+    public InputStream openWholeObject(String key, Long size, ResourceType type) {
+        return readObject(key, 0, null, size, type);
+    }
+
+    private InputStream readObject(String key, long offset, Long length, Long wholeSize, ResourceType type) {
+        Optional<LocalObjectCache.CachedObject> cached = findLocalObject(key);
+        if (cached.isPresent()) {
+            try {
+                return storageMetrics.meterDownload(cached.get().open(offset, length), type);
+            } catch (IOException e) {
+                log.warn("Local copy of {} is unreadable, reading from the object store: {}", key, e.getMessage());
+                objectCache.invalidate(key);
+            }
         }
 
         try {
-            GetObjectResponse response = minioClient.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(resource.getKey())
-                            .build()
-            );
-
-            return FileDownloadResponse.builder()
-                    .fileName(resource.getName())
-                    .size(resource.getSize() != null ? resource.getSize().longValue() : null)
-                    .contentType(resource.getContentType())
-                    .inputStream(response)
-                    .build();
+            InputStream content;
+            if (wholeSize != null && objectCache.sharesFetches()) {
+                content = storageMetrics.time(StorageMetrics.OBJECT_GET, type,
+                        () -> objectCache.fetch(key, wholeSize, () -> objectStore.get(key, 0, null)));
+            } else {
+                content = storageMetrics.time(StorageMetrics.OBJECT_GET, type,
+                        () -> objectStore.get(key, offset, length));
+            }
+            return storageMetrics.meterDownload(content, type);
 
         } catch (Exception e) {
-            log.error("Failed to download file: resourceId={}, projectId={}", resourceId, projectId, e);
-            throw new RuntimeException(
-                    String.format("Failed to download file: resourceId=%d, projectId=%d", resourceId, projectId), e);
+            log.error("Failed to read object {} (offset={}, length={})", key, offset, length, e);
+            throw new RuntimeException(String.format("Failed to download file: %s", key), e);
+        }
+    }
+
+    /**
+     * Returns the object as a file on this node, if the object store keeps it locally or
+     * the on-node object cache has a copy, so the caller can serve it straight from disk.
+     */
+    public Optional<LocalObjectCache.CachedObject> findLocalObject(String key) {
+        Optional<LocalObjectCache.CachedObject> local = objectStore.findLocal(key);
+        if (local.isPresent()) {
+            return local;
         }
+        return objectCache.isEnabled() ? objectCache.get(key) : Optional.empty();
+    }
+
+    /**
+     * Returns a path at which a local object stays readable for a transfer that opens it
+     * later, such as Tomcat's sendfile: the file itself when the object store keeps it, or
+     * a link that survives eviction for an entry of the object cache. Empty if the cached
+     * entry is already gone.
+     */
+    public Optional<Path> pinLocalObject(LocalObjectCache.CachedObject object) {
+        return object.evictable() ? objectCache.link(object) : Optional.of(object.path());
     }
 
+    /**
+     * Marks the resource deleted and releases its quota in a short transaction. The object
+     * itself is left to {@link ObjectDeletionQueue}, which removes it in the background.
+     */
     @Transactional
     public void deleteFile(Long resourceId, Long projectId, Long userId) 
             throws AccessDeniedException {
@@ -181,88 +472,312 @@ public class FileStorageService {
             log.warn("Resource {} is already deleted in project {}", resourceId, projectId);
             return;
         }
+        if (resource.getStatus() == ResourceStatus.PENDING) {
+            throw new IllegalStateException(
+                    String.format("Resource %d in project %d is still being uploaded", resourceId, projectId));
+        }
 
-        try {
-            if (resource.getKey() != null) {
-                minioClient.removeObject(
-                        RemoveObjectArgs.builder()
-                                .bucket(bucketName)
-                                .object(resource.getKey())
-                                .build()
-                );
-                log.info("File removed from MinIO: {}", resource.getKey());
+        String orphanedKey;
+        if (resource.getBlob() != null) {
+            orphanedKey = releaseBlob(resource.getBlob().getId());
+        } else {
+            orphanedKey = resource.getKey();
+        }
+
+        if (resource.getSize() != null && resource.getSize().signum() > 0) {
+            projectRepository.releaseStorage(resource.getProject().getId(), resource.getSize());
+        }
+
+        resource.setKey(null);
+        resource.setBlob(null);
+        resource.setSize(BigInteger.ZERO);
+        resource.setStatus(ResourceStatus.DELETED);
+        resource.setUpdatedBy(user);
+        resourceRepository.save(resource);
+
+        if (orphanedKey != null) {
+            objectDeletionQueue.enqueue(orphanedKey);
+        }
+
+        log.info("Resource {} deleted successfully from project {}", resourceId, projectId);
+    }
+
+    /**
+     * Deletes up to {@code bulk-delete-max-resources} resources selected by id or filter in
+     * one transaction: permissions are checked against the loaded set, the quota is
+     * released with one decrement, the rows are marked deleted with one UPDATE and the
+     * objects are queued for {@link ObjectDeletionQueue}. If the user may not delete any
+     * one of them, nothing is deleted. Ids that are missing or not active are skipped;
+     * {@code hasMore} tells a filtered request to call again for the next batch.
+     */
+    @Transactional
+    public BulkDeleteResponse deleteFiles(BulkDeleteRequest request, Long projectId, Long userId)
+            throws AccessDeniedException {
+        List<Long> resourceIds = request.getResourceIds();
+        boolean byIds = resourceIds != null && !resourceIds.isEmpty();
+        if (!byIds && !request.hasFilter()) {
+            throw new IllegalArgumentException("Resource ids or a filter (type, createdBy, olderThan) is required");
+        }
+        if (byIds && resourceIds.size() > bulkDeleteMaxResources) {
+            throw new IllegalArgumentException(
+                    String.format("Maximum %d resources can be deleted at once", bulkDeleteMaxResources));
+        }
+
+        UserSnapshot user = metadataLookupService.getUser(userId);
+        metadataLookupService.getProject(projectId);
+
+        List<ResourceRepository.DeletionCandidate> candidates;
+        List<Long> skipped = new ArrayList<>();
+        boolean hasMore = false;
+        if (byIds) {
+            Map<Long, ResourceRepository.DeletionCandidate> loaded = resourceRepository
+                    .findDeletionCandidates(Set.copyOf(resourceIds), projectId).stream()
+                    .collect(Collectors.toMap(ResourceRepository.DeletionCandidate::getId, candidate -> candidate));
+            candidates = new ArrayList<>();
+            for (Long resourceId : new LinkedHashSet<>(resourceIds)) {
+                ResourceRepository.DeletionCandidate candidate = loaded.get(resourceId);
+                if (candidate == null || candidate.getStatus() != ResourceStatus.ACTIVE
+                        || !matchesFilter(candidate, request)) {
+                    skipped.add(resourceId);
+                } else {
+                    candidates.add(candidate);
+                }
+            }
+        } else {
+            candidates = resourceRepository.findDeletionCandidatesByFilter(
+                    projectId, ResourceStatus.ACTIVE, request.getType(), request.getCreatedBy(),
+                    request.getOlderThan(), PageRequest.of(0, bulkDeleteMaxResources + 1));
+            hasMore = candidates.size() > bulkDeleteMaxResources;
+            if (hasMore) {
+                candidates = candidates.subList(0, bulkDeleteMaxResources);
             }
+        }
 
-            resource.setKey(null);
-            resource.setSize(BigInteger.ZERO);
-            resource.setStatus(ResourceStatus.DELETED);
-            resource.setUpdatedBy(user);
-            resourceRepository.save(resource);
+        validateBulkDeletePermission(candidates, user, projectId);
+        if (!candidates.isEmpty()) {
+            releaseResources(candidates, projectId, userId);
+        }
 
-            updateProjectStorageSize(resource.getProject().getId());
+        log.info("Bulk deleted {} resources from project {} by user {} (skipped {}, more: {})",
+                candidates.size(), projectId, userId, skipped.size(), hasMore);
+        return BulkDeleteResponse.builder()
+                .deleted(candidates.size())
+                .skipped(skipped)
+                .hasMore(hasMore)
+                .build();
+    }
 
-            log.info("Resource {} deleted successfully from project {}", resourceId, projectId);
+    /**
+     * Expires uploads whose PENDING row outlived the pending timeout, e.g. because the
+     * process died mid-transfer: the row is marked deleted, its reservation released and
+     * whatever reached MinIO is queued for removal. A row that an upload activates in the
+     * meantime is left alone.
+     */
+    @Scheduled(
+            fixedDelayString = "${file-storage.quota.reconcile-interval-ms}",
+            initialDelayString = "${file-storage.quota.reconcile-interval-ms}")
+    public void expireStalePendingResources() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(pendingTimeoutMinutes);
+        Integer expired = transactionTemplate.execute(status -> {
+            List<Resource> stale = resourceRepository.findByStatusAndUpdatedAtBefore(ResourceStatus.PENDING, cutoff);
+            int count = 0;
+            for (Resource resource : stale) {
+                if (resourceRepository.transitionStatus(
+                        resource.getId(), ResourceStatus.PENDING, ResourceStatus.DELETED) == 0) {
+                    continue;
+                }
+                if (resource.getSize() != null && resource.getSize().signum() > 0) {
+                    projectRepository.releaseStorage(resource.getProject().getId(), resource.getSize());
+                }
+                if (resource.getKey() != null) {
+                    objectDeletionQueue.enqueue(resource.getKey());
+                }
+                resource.setKey(null);
+                resource.setSize(BigInteger.ZERO);
+                resource.setStatus(ResourceStatus.DELETED);
+                resourceRepository.save(resource);
+                count++;
+            }
+            return count;
+        });
 
-        } catch (Exception e) {
-            log.error("Failed to delete file: resourceId={}, projectId={}", resourceId, projectId, e);
-            throw new RuntimeException(
-                    String.format("Failed to delete file: resourceId=%d, projectId=%d", resourceId, projectId), e);
+        if (expired != null && expired > 0) {
+            log.info("Expired {} stale pending uploads", expired);
         }
     }
 
+    @Transactional(readOnly = true)
     public Page<ResourceDto> getProjectFiles(Long projectId, Long userId, Pageable pageable) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("User %d not found", userId)));
+        metadataLookupService.getUser(userId);
 
         // Check if user has access to project (simplified - in real app would check project membership)
-        Project project = findProjectById(projectId);
+        metadataLookupService.getProject(projectId);
+
+        return resourceRepository.findListing(projectId, ResourceStatus.ACTIVE, pageable);
+    }
+
+    /**
+     * Lists a project's active files newest first using keyset pagination on
+     * {@code (created_at, id)}: each page seeks past the cursor on the listing index, so
+     * it costs the same however deep the client is, and no total count is computed.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ResourceDto> getProjectFiles(Long projectId, Long userId, String cursor, int size) {
+        metadataLookupService.getUser(userId);
+        metadataLookupService.getProject(projectId);
+
+        // One extra row tells whether there is a next page without counting
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ResourceDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = resourceRepository.findListingPage(projectId, ResourceStatus.ACTIVE, limit);
+        } else {
+            ResourceCursor after = ResourceCursor.decode(cursor);
+            rows = resourceRepository.findListingPageAfter(
+                    projectId, ResourceStatus.ACTIVE, after.createdAt(), after.id(), limit);
+        }
 
-        Page<Resource> resources = resourceRepository
-                .findByProjectIdAndStatus(projectId, ResourceStatus.ACTIVE, pageable);
+        boolean hasNext = rows.size() > size;
+        List<ResourceDto> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ResourceDto last = page.get(page.size() - 1);
+            nextCursor = new ResourceCursor(last.getCreatedAt(), last.getId()).encode();
+        }
 
-        return resources.map(this::toDto);
+        return CursorPage.<ResourceDto>builder()
+                .content(page)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public String generatePresignedUrl(Long resourceId, Long projectId, Long userId) 
             throws AccessDeniedException {
         Resource resource = findResourceByProjectId(resourceId, projectId);
         validateAccess(resource, userId);
+        // A pending or deleted key must not get a URL, which the cache would then hand out
+        validateActive(resource, projectId);
 
-        try {
-            String url = minioClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.GET)
-                            .bucket(bucketName)
-                            .object(resource.getKey())
-                            .expiry(presignedUrlExpirySeconds, TimeUnit.SECONDS)
-                            .build()
-            );
-
-            log.info("Generated presigned URL for resource {} in project {}", resourceId, projectId);
-            return url;
+        String url = presignedUrlCache.get(resource.getKey(), presignedUrlExpirySeconds, this::signDownloadUrl);
+
+        log.info("Generated presigned URL for resource {} in project {}", resourceId, projectId);
+        return url;
+    }
+
+    /**
+     * Signs download URLs for many resources at once: one query resolves every id, access
+     * is checked in memory against the cached roles of the user, and the URLs come from
+     * the presigned URL cache. Ids that are missing, not active or not accessible get an
+     * error entry instead of failing the whole batch. Results follow the request order.
+     */
+    public List<PresignedUrlResponse> generatePresignedUrls(List<Long> resourceIds, Long projectId, Long userId) {
+        UserSnapshot user = metadataLookupService.getUser(userId);
+        Map<Long, ResourceRepository.ObjectAccess> resources = resourceRepository
+                .findObjectAccess(Set.copyOf(resourceIds), projectId).stream()
+                .collect(Collectors.toMap(ResourceRepository.ObjectAccess::getId, resource -> resource));
+
+        List<PresignedUrlResponse> urls = resourceIds.stream()
+                .map(resourceId -> presignedUrlFor(resourceId, resources.get(resourceId), projectId, user))
+                .toList();
+
+        log.info("Generated {} of {} presigned URLs in project {} for user {}",
+                urls.stream().filter(url -> url.getUrl() != null).count(), urls.size(), projectId, userId);
+        return urls;
+    }
 
+    private PresignedUrlResponse presignedUrlFor(Long resourceId, ResourceRepository.ObjectAccess resource,
+                                                 Long projectId, UserSnapshot user) {
+        String error = null;
+        if (resource == null || resource.getStatus() != ResourceStatus.ACTIVE) {
+            error = String.format("Resource %d not found or doesn't belong to project %d", resourceId, projectId);
+        } else if (!user.hasAnyRole(resource.getAllowedRolesMask())) {
+            error = String.format("User %d does not have permission to access resource %d in project %d",
+                    user.id(), resourceId, projectId);
+        }
+        if (error != null) {
+            return PresignedUrlResponse.builder()
+                    .resourceId(resourceId)
+                    .error(error)
+                    .build();
+        }
+
+        return PresignedUrlResponse.builder()
+                .resourceId(resourceId)
+                .url(presignedUrlCache.get(resource.getObjectKey(), presignedUrlExpirySeconds, this::signDownloadUrl))
+                .expiresIn(presignedUrlExpirySeconds)
+                .build();
+    }
+
+    private String signDownloadUrl(String key, int expirySeconds) {
+        try {
+            return storageMetrics.time(StorageMetrics.PRESIGN, null, () -> objectStore.presign(key, expirySeconds));
         } catch (Exception e) {
-            log.error("Failed to generate presigned URL: resourceId={}, projectId={}", resourceId, projectId, e);
-            throw new RuntimeException(
+            log.error("Failed to generate presigned URL for object {}", key, e);
+            throw new RuntimeException(String.format("Failed to generate download URL for object %s", key), e);
+        }
+    }
+
+    private void validateActive(Resource resource, Long projectId) {
+        if (resource.getStatus() != ResourceStatus.ACTIVE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
                     String.format(
-                            "Failed to generate download URL: resourceId=%d, projectId=%d",
-                            resourceId, projectId), e);
+                            "Resource %d is not active (status: %s) in project %d",
+                            resource.getId(), resource.getStatus(), projectId));
         }
     }
 
     private void validateFile(MultipartFile file) {
-        if (file.getSize() > maxFileSize) {
+        validateFileSize(file.getSize());
+        validateFileName(file.getOriginalFilename());
+    }
+
+    private void validateFileSize(long fileSize) {
+        if (fileSize > maxFileSize) {
             throw new ResponseStatusException(
                     HttpStatus.PAYLOAD_TOO_LARGE,
                     String.format("File size %d bytes exceeds maximum allowed size of %d MB (%d bytes)",
-                            file.getSize(), maxFileSizeMb, maxFileSize));
+                            fileSize, maxFileSizeMb, maxFileSize));
+        }
+    }
+
+    void validateUpload(String fileName, long fileSize) {
+        validateFileName(fileName);
+        validateFileSize(fileSize);
+    }
+
+    void validateStorageLimit(Long projectId, long fileSize) {
+        Project project = projectRepository.findById(projectId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        String.format("Project not found: projectId=%d", projectId)));
+        validateStorageLimit(project, fileSize);
+    }
+
+    /**
+     * Reserves quota for an upload that is tracked outside the resource table, such as an
+     * upload session. Must run in the transaction that records the reservation.
+     */
+    void reserveStorage(Long projectId, long size, ResourceType type) {
+        reserveStorage(findProjectById(projectId), size, type);
+    }
+
+    void releaseStorage(Long projectId, long size) {
+        projectRepository.releaseStorage(projectId, BigInteger.valueOf(size));
+        log.debug("Released {} bytes of storage in project {}", size, projectId);
+    }
+
+    private void validateFileName(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name cannot be empty");
         }
 
-        String extension = getFileExtension(file.getOriginalFilename());
+        String extension = getFileExtension(fileName);
         if (blockedExtensions.contains(extension)) {
             throw new IllegalArgumentException(
-                    String.format("File type is not allowed: %s. File: %s", extension, file.getOriginalFilename()));
+                    String.format("File type is not allowed: %s. File: %s", extension, fileName));
         }
     }
 
@@ -284,7 +799,7 @@ public class FileStorageService {
         }
     }
 
-    private String getFileExtension(String fileName) {
+    String getFileExtension(String fileName) {
         if (fileName == null || fileName.isEmpty()) {
             return "";
         }
@@ -295,72 +810,464 @@ public class FileStorageService {
         return "";
     }
 
-    private String generateStorageKey(Long projectId, String fileName) {
-        String timestamp = String.valueOf(Instant.now().toEpochMilli());
-        String uuid = UUID.randomUUID().toString().substring(0, uuidSubstringLength);
-        String sanitizedFileName = sanitizeFileName(fileName);
+    String generateStorageKey(Long projectId, String fileName) {
+        return StorageKeys.build(projectId, System.currentTimeMillis(), uuidSubstringLength, fileName);
+    }
 
-        return String.format(PROJECT_KEY_TEMPLATE, projectId, timestamp, uuid, sanitizedFileName);
+    String sanitizeFileName(String fileName) {
+        return StorageKeys.sanitizeFileName(fileName);
     }
 
-    private String sanitizeFileName(String fileName) {
-        return fileName.replaceAll(SANITIZE_PATTERN, UNDERSCORE_REPLACEMENT)
-                .replaceAll(SANITIZE_DUPLICATE_PATTERN, UNDERSCORE_REPLACEMENT)
-                .toLowerCase();
+    /**
+     * Detects the type of a multipart file from its head. The head is kept in the result
+     * so that {@link #openContent} does not read it from disk a second time.
+     */
+    private ContentTypeDetector.Detection detectContentType(MultipartFile file) {
+        try (InputStream content = file.getInputStream()) {
+            return contentTypeDetector.detect(content, file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            log.error("Error reading file {}", file.getOriginalFilename(), e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
     }
 
-    private String detectContentType(MultipartFile file) {
+    /**
+     * Opens a multipart file for its transfer: the head captured during detection followed
+     * by the rest of the file, which is skipped to rather than read.
+     */
+    private InputStream openContent(MultipartFile file, ContentTypeDetector.Detection detection) throws IOException {
+        InputStream content = file.getInputStream();
         try {
-            String detected = tika.detect(file.getInputStream());
-            if (detected != null && !detected.isBlank()) {
-                return detected;
+            content.skipNBytes(detection.head().length);
+        } catch (IOException e) {
+            content.close();
+            throw e;
+        }
+        return detection.prepend(content);
+    }
+
+    /**
+     * Points the just-uploaded object at a content blob. If a blob with the same hash
+     * already exists its reference count goes up and the blob's key is returned, leaving
+     * the caller to drop the duplicate object once the transaction has committed;
+     * otherwise the uploaded object becomes a new blob.
+     */
+    private ContentBlob resolveBlob(ContentChecksums checksums, String uploadedKey, long size) {
+        Optional<ContentBlob> existing = contentBlobRepository.findBySha256WithLock(checksums.sha256Hex());
+        if (existing.isPresent()) {
+            ContentBlob blob = existing.get();
+            blob.setRefCount(blob.getRefCount() + 1);
+            if (blob.getMd5() == null) {
+                blob.setMd5(checksums.md5Hex());
+            }
+            contentBlobRepository.save(blob);
+            log.info("Deduplicated upload {} onto blob {} (refs: {})", uploadedKey, blob.getKey(), blob.getRefCount());
+            return blob;
+        }
+
+        return contentBlobRepository.save(ContentBlob.builder()
+                .sha256(checksums.sha256Hex())
+                .md5(checksums.md5Hex())
+                .key(uploadedKey)
+                .size(size)
+                .refCount(1)
+                .build());
+    }
+
+    private String releaseBlob(Long blobId) {
+        return releaseBlob(blobId, 1);
+    }
+
+    /**
+     * Drops {@code references} references to a blob and returns the key of its object when
+     * those were the last ones, or {@code null} while other resources still point at it.
+     */
+    private String releaseBlob(Long blobId, long references) {
+        ContentBlob blob = contentBlobRepository.findByIdWithLock(blobId)
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Content blob %d not found", blobId)));
+
+        int remaining = (int) (blob.getRefCount() - references);
+        if (remaining > 0) {
+            blob.setRefCount(remaining);
+            contentBlobRepository.save(blob);
+            log.info("Released blob {} (refs: {})", blob.getKey(), remaining);
+            return null;
+        }
+
+        contentBlobRepository.delete(blob);
+        return blob.getKey();
+    }
+
+    /**
+     * The set-based part of a bulk delete. Objects are queued before the UPDATE clears
+     * the keys they are read from.
+     */
+    private void releaseResources(List<ResourceRepository.DeletionCandidate> candidates, Long projectId, Long userId) {
+        List<Long> ids = candidates.stream().map(ResourceRepository.DeletionCandidate::getId).toList();
+
+        Map<Long, Long> blobReferences = candidates.stream()
+                .filter(candidate -> candidate.getBlobId() != null)
+                .collect(Collectors.groupingBy(ResourceRepository.DeletionCandidate::getBlobId, Collectors.counting()));
+        blobReferences.forEach((blobId, references) -> {
+            String orphanedKey = releaseBlob(blobId, references);
+            if (orphanedKey != null) {
+                objectDeletionQueue.enqueue(orphanedKey);
             }
-            return getDefaultContentType();
+        });
+        objectDeletionQueue.enqueueResources(ids);
+
+        BigInteger releasedSize = candidates.stream()
+                .map(ResourceRepository.DeletionCandidate::getObjectSize)
+                .filter(size -> size != null && size.signum() > 0)
+                .reduce(BigInteger.ZERO, BigInteger::add);
+        if (releasedSize.signum() > 0) {
+            projectRepository.releaseStorage(projectId, releasedSize);
+        }
+
+        resourceRepository.markDeleted(ids, ResourceStatus.DELETED, userRepository.getReferenceById(userId),
+                LocalDateTime.now());
+    }
+
+    private void removeObjectQuietly(String key) {
+        objectCache.invalidate(key);
+        try {
+            objectStore.delete(key);
+            log.info("Object removed from storage: {}", key);
         } catch (Exception e) {
-            String fileContentType = file.getContentType();
-            return fileContentType != null && !fileContentType.isBlank()
-                    ? fileContentType : getDefaultContentType();
+            log.warn("Failed to remove orphaned object {} from storage", key, e);
         }
     }
 
-    private String getDefaultContentType() {
-        if (defaultContentType != null && !defaultContentType.isBlank()) {
-            return defaultContentType;
+    private Resource createPendingResource(String fileName, long reservedSize, String contentType,
+                                           Long projectId, Long userId, Set<UserRole> allowedRoles) {
+        ResourceType type = ResourceType.getResourceType(contentType);
+        return storageMetrics.time(StorageMetrics.DB_SAVE, type, () -> transactionTemplate.execute(status -> {
+            Project project = findProjectById(projectId);
+            validateStorageLimit(project, reservedSize);
+
+            User user = findUserById(userId);
+            List<UserRole> userRoleList = getAllowedUserRoles(allowedRoles, user);
+
+            if (reservedSize > 0) {
+                reserveStorage(project, reservedSize, type);
+            }
+            Resource resource = buildResource(fileName, reservedSize, generateStorageKey(projectId, fileName),
+                    contentType, userRoleList, project, user);
+            resource.setStatus(ResourceStatus.PENDING);
+            return resourceRepository.save(resource);
+        }));
+    }
+
+    private Resource activateResource(Resource pending, long size, boolean reserveNow, ContentChecksums checksums) {
+        ResourceType type = pending.getType();
+        String uploadedKey = pending.getKey();
+        Resource activated = storageMetrics.time(StorageMetrics.DB_SAVE, type, () -> executeResolvingBlobs(status -> {
+            claimPending(pending);
+            if (reserveNow) {
+                reserveStorage(pending.getProject(), size, type);
+            }
+            ContentBlob blob = resolveBlob(checksums, uploadedKey, size);
+            pending.setKey(blob.getKey());
+            pending.setBlob(blob);
+            pending.setSize(BigInteger.valueOf(size));
+            pending.setStatus(ResourceStatus.ACTIVE);
+
+            Resource resource = resourceRepository.save(pending);
+            // Callers map the result after the transaction has ended.
+            Hibernate.initialize(resource.getAllowedRoles());
+            return resource;
+        }));
+
+        if (!uploadedKey.equals(activated.getKey())) {
+            removeObjectQuietly(uploadedKey);
         }
-        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        return activated;
     }
 
+    /**
+     * Activates a PENDING row for the current transaction. Fails if the row is no longer
+     * pending, i.e. {@link #expireStalePendingResources()} already released its quota and
+     * queued its object for removal, so that the caller compensates instead of reviving it.
+     */
+    private void claimPending(Resource pending) {
+        if (resourceRepository.transitionStatus(pending.getId(), ResourceStatus.PENDING, ResourceStatus.ACTIVE) == 0) {
+            throw new IllegalStateException(String.format(
+                    "Upload of resource %d expired before it completed", pending.getId()));
+        }
+    }
 
-    private void uploadToMinio(MultipartFile file, String key) throws Exception {
-        minioClient.putObject(PutObjectArgs
-                .builder()
-                .bucket(bucketName)
-                .object(key)
-                .stream(file.getInputStream(), file.getSize(), -1)
-                .build());
+    /**
+     * Runs a transaction that resolves content blobs, once more if it lost the race to
+     * create one: two first uploads of the same content both find no row to lock, and
+     * the UNIQUE(sha256) constraint fails the later insert. The failed transaction is
+     * rolled back as a whole, and on the retry the locked lookup finds the committed blob.
+     */
+    <T> T executeResolvingBlobs(TransactionCallback<T> action) {
+        try {
+            return transactionTemplate.execute(action);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Content blob was created concurrently, retrying activation: {}",
+                    e.getMostSpecificCause().getMessage());
+            return transactionTemplate.execute(action);
+        }
+    }
+
+    /**
+     * Phase one of a bulk upload. The batch is reserved with a single conditional UPDATE;
+     * if the batch as a whole does not fit, files are reserved one by one in request order
+     * and the ones that no longer fit are reported as failed.
+     */
+    private Map<Integer, Resource> createPendingResources(List<MultipartFile> files,
+                                                          Map<Integer, ContentTypeDetector.Detection> detections,
+                                                          Long projectId, Long userId, Set<UserRole> allowedRoles,
+                                                          ResourceResponse[] results) {
+        if (detections.isEmpty()) {
+            return Map.of();
+        }
+        return storageMetrics.time(StorageMetrics.DB_SAVE, null, () -> transactionTemplate.execute(status -> {
+            Project project = findProjectById(projectId);
+            User user = findUserById(userId);
+            List<UserRole> userRoleList = getAllowedUserRoles(allowedRoles, user);
+
+            long totalSize = detections.keySet().stream().mapToLong(i -> files.get(i).getSize()).sum();
+            List<Integer> reserved = new ArrayList<>();
+            int batchReserved = storageMetrics.time(StorageMetrics.QUOTA_RESERVE, null,
+                    () -> projectRepository.reserveStorage(projectId, BigInteger.valueOf(totalSize)));
+            if (batchReserved > 0) {
+                reserved.addAll(detections.keySet());
+            } else {
+                for (Integer i : detections.keySet()) {
+                    try {
+                        reserveStorage(project, files.get(i).getSize(),
+                                ResourceType.getResourceType(detections.get(i).contentType()));
+                        reserved.add(i);
+                    } catch (StorageLimitExceededException e) {
+                        results[i] = failedUpload(files.get(i), e);
+                    }
+                }
+            }
+
+            List<Resource> resources = new ArrayList<>();
+            for (Integer i : reserved) {
+                MultipartFile file = files.get(i);
+                Resource resource = buildResource(file.getOriginalFilename(), file.getSize(),
+                        generateStorageKey(projectId, file.getOriginalFilename()), detections.get(i).contentType(),
+                        new ArrayList<>(userRoleList), project, user);
+                resource.setStatus(ResourceStatus.PENDING);
+                resources.add(resource);
+            }
+            List<Resource> saved = resourceRepository.saveAll(resources);
+
+            Map<Integer, Resource> pending = new LinkedHashMap<>();
+            for (int n = 0; n < reserved.size(); n++) {
+                pending.put(reserved.get(n), saved.get(n));
+            }
+            return pending;
+        }));
+    }
+
+    private ContentChecksums transferObject(MultipartFile file, ContentTypeDetector.Detection detection, String key,
+                                            String contentType) throws Exception {
+        ContentChecksums checksums = new ContentChecksums();
+        try (InputStream content = checksums.wrap(openContent(file, detection))) {
+            putObject(key, content, file.getSize(), contentType, checksums);
+        }
+        return checksums;
+    }
+
+    /**
+     * Stores an object, recording the put as a stage and the bytes read from
+     * {@code content} as an upload transfer, then checks the stored object against
+     * {@code checksums}, which {@code content} feeds. An object that does not match is
+     * removed before the failure is thrown.
+     */
+    private void putObject(String key, InputStream content, long size, String contentType,
+                           ContentChecksums checksums) throws IOException {
+        ResourceType type = ResourceType.getResourceType(contentType);
+        String etag;
+        try (StorageMetrics.Transfer transfer = storageMetrics.startUpload(type)) {
+            etag = storageMetrics.time(StorageMetrics.OBJECT_PUT, type,
+                    () -> objectStore.put(key, transfer.meter(content), size, contentType));
+        }
+        if (verifyEtag && isContentMd5(etag) && !stripQuotes(etag).equalsIgnoreCase(checksums.md5Hex())) {
+            removeObjectQuietly(key);
+            throw new IOException(String.format("Object %s was stored with ETag %s, but the content sent has MD5 %s",
+                    key, etag, checksums.md5Hex()));
+        }
+    }
+
+    /**
+     * Whether an ETag is the MD5 of the object, as for a single-part S3 upload. Multipart
+     * ETags carry a {@code -<parts>} suffix and are not a digest of the content.
+     */
+    private static boolean isContentMd5(String etag) {
+        return etag != null && stripQuotes(etag).length() == 32 && etag.indexOf('-') < 0;
+    }
+
+    private static String stripQuotes(String etag) {
+        return etag.replace("\"", "");
+    }
+
+    /**
+     * Phase three of a bulk upload: activates every transferred file and drops the
+     * PENDING rows and reservations of the ones whose transfer failed.
+     */
+    private List<Resource> activateResources(Map<Integer, ContentChecksums> digests, Map<Integer, Resource> pending,
+                                             List<Resource> failed) {
+        if (digests.isEmpty() && failed.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, String> uploadedKeys = new LinkedHashMap<>();
+        digests.keySet().forEach(i -> uploadedKeys.put(i, pending.get(i).getKey()));
+
+        List<Resource> activated = storageMetrics.time(StorageMetrics.DB_SAVE, null,
+                () -> executeResolvingBlobs(status -> {
+                    List<Resource> resources = new ArrayList<>();
+                    digests.forEach((i, checksums) -> {
+                        Resource resource = pending.get(i);
+                        claimPending(resource);
+                        ContentBlob blob = resolveBlob(checksums, uploadedKeys.get(i),
+                                resource.getSize().longValue());
+                        resource.setKey(blob.getKey());
+                        resource.setBlob(blob);
+                        resource.setStatus(ResourceStatus.ACTIVE);
+                        resources.add(resource);
+                    });
+
+                    // Rows that already expired had their reservation released there
+                    List<Resource> discarded = failed.stream()
+                            .filter(resource -> resourceRepository.transitionStatus(
+                                    resource.getId(), ResourceStatus.PENDING, ResourceStatus.DELETED) > 0)
+                            .toList();
+                    if (!discarded.isEmpty()) {
+                        BigInteger failedSize = discarded.stream()
+                                .map(Resource::getSize)
+                                .reduce(BigInteger.ZERO, BigInteger::add);
+                        projectRepository.releaseStorage(discarded.get(0).getProject().getId(), failedSize);
+                        resourceRepository.deleteAllById(discarded.stream().map(Resource::getId).toList());
+                    }
+                    return resourceRepository.saveAll(resources);
+                }));
+
+        int next = 0;
+        for (String uploadedKey : uploadedKeys.values()) {
+            if (!uploadedKey.equals(activated.get(next++).getKey())) {
+                removeObjectQuietly(uploadedKey);
+            }
+        }
+        return activated;
+    }
+
+    private ResourceResponse failedUpload(MultipartFile file, Throwable cause) {
+        log.error("Failed to upload file: {}", file.getOriginalFilename(), cause);
+        return ResourceResponse.builder()
+                .name(file.getOriginalFilename())
+                .status(ResourceUploadStatus.FAILED)
+                .error(cause.getMessage())
+                .build();
     }
 
-    private void updateProjectStorageSize(Long projectId) {
-        Long totalSize = resourceRepository.calculateProjectStorageSize(projectId);
-        totalSize = totalSize != null ? totalSize : 0L;
-        projectRepository.updateStorageSize(projectId, BigInteger.valueOf(totalSize));
-        log.debug("Updated project {} storage size to {}", projectId, totalSize);
+    /**
+     * Compensates a failed upload: releases the quota reserved up front, deletes the
+     * PENDING row and removes whatever reached the object store. If the database is
+     * unreachable the row is left for {@link #expireStalePendingResources()}; if that
+     * already expired the row, the quota has been released there.
+     */
+    private void discardPendingResource(Resource pending, String key, long reservedSize, boolean uploaded) {
+        try {
+            transactionTemplate.execute(status -> {
+                if (resourceRepository.transitionStatus(
+                        pending.getId(), ResourceStatus.PENDING, ResourceStatus.DELETED) == 0) {
+                    return null;
+                }
+                if (reservedSize > 0) {
+                    projectRepository.releaseStorage(pending.getProject().getId(), BigInteger.valueOf(reservedSize));
+                }
+                resourceRepository.deleteById(pending.getId());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to discard pending resource {}", pending.getId(), e);
+        }
+        if (uploaded) {
+            removeObjectQuietly(key);
+        }
+    }
+
+    private static boolean hasCause(Throwable throwable, Class<? extends Throwable> type) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private void validateAccess(Resource resource, Long userId) 
+    /**
+     * Claims quota with a single conditional UPDATE instead of locking the project row
+     * for the whole upload; the row lock is only held from here until commit. The time
+     * spent waiting for that lock shows up as the {@code quota-reserve} stage.
+     */
+    private void reserveStorage(Project project, long size, ResourceType type) {
+        int reserved = storageMetrics.time(StorageMetrics.QUOTA_RESERVE, type,
+                () -> projectRepository.reserveStorage(project.getId(), BigInteger.valueOf(size)));
+        if (reserved == 0) {
+            long maxSizeMb = project.getMaxStorageSize() != null
+                    ? project.getMaxStorageSize().longValue() / BYTES_PER_MB
+                    : 0L;
+            throw new StorageLimitExceededException(
+                    String.format("Storage limit exceeded. Requested: %d bytes, Limit: %d MB",
+                            size, maxSizeMb));
+        }
+        log.debug("Reserved {} bytes of storage in project {}", size, project.getId());
+    }
+
+    /**
+     * Strong validator for a resource: the content hash when the content is stored as a
+     * blob, otherwise the row id and its last modification time.
+     */
+    private String generateEtag(Resource resource) {
+        if (resource.getBlob() != null && resource.getBlob().getSha256() != null) {
+            return "\"" + resource.getBlob().getSha256() + "\"";
+        }
+        Instant lastModified = lastModifiedOf(resource);
+        return String.format("\"%d-%d\"", resource.getId(), lastModified != null ? lastModified.toEpochMilli() : 0L);
+    }
+
+    /**
+     * {@code Digest} header value (RFC 3230) from the checksums recorded when the content
+     * was uploaded, or {@code null} for objects registered without them.
+     */
+    private String digestOf(Resource resource) {
+        ContentBlob blob = resource.getBlob();
+        if (blob == null || blob.getSha256() == null) {
+            return null;
+        }
+        String digest = "sha-256=" + ContentChecksums.hexToBase64(blob.getSha256());
+        return blob.getMd5() != null ? digest + ",md5=" + ContentChecksums.hexToBase64(blob.getMd5()) : digest;
+    }
+
+    private Instant lastModifiedOf(Resource resource) {
+        LocalDateTime timestamp = resource.getUpdatedAt() != null ? resource.getUpdatedAt() : resource.getCreatedAt();
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    /**
+     * Compares the role masks of the user and the resource, so neither role collection
+     * is loaded: the user comes from the metadata cache and the resource mask is on its row.
+     */
+    void validateAccess(Resource resource, Long userId)
             throws AccessDeniedException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("User %d not found", userId)));
+        int userRolesMask = metadataLookupService.getUser(userId).rolesMask();
 
-        if (resource.getAllowedRoles() == null || resource.getAllowedRoles().isEmpty()) {
+        if (resource.getAllowedRolesMask() == 0) {
             throw new IllegalStateException(
                     String.format("Resource %d has no allowed roles configured in project %d",
                             resource.getId(), resource.getProject().getId()));
         }
 
-        boolean hasAccess = user.getRoles().stream()
-                .anyMatch(resource.getAllowedRoles()::contains);
+        boolean hasAccess = (userRolesMask & resource.getAllowedRolesMask()) != 0;
 
         if (!hasAccess) {
             throw new AccessDeniedException(
@@ -384,20 +1291,27 @@ public class FileStorageService {
         }
     }
 
-    private ResourceDto toDto(Resource resource) {
-        Long size = resource.getSize() != null
-                ? resource.getSize().longValue()
-                : null;
+    private static boolean matchesFilter(ResourceRepository.DeletionCandidate candidate, BulkDeleteRequest request) {
+        return (request.getType() == null || request.getType() == candidate.getResourceType())
+                && (request.getCreatedBy() == null || request.getCreatedBy().equals(candidate.getCreatedById()))
+                && (request.getOlderThan() == null || candidate.getCreatedAt().isBefore(request.getOlderThan()));
+    }
 
-        return ResourceDto.builder()
-                .id(resource.getId())
-                .name(resource.getName())
-                .size(size)
-                .type(resource.getType())
-                .contentType(resource.getContentType())
-                .createdBy(resource.getCreatedBy().getNickname())
-                .createdAt(resource.getCreatedAt())
-                .build();
+    private void validateBulkDeletePermission(List<ResourceRepository.DeletionCandidate> candidates,
+                                              UserSnapshot user, Long projectId) throws AccessDeniedException {
+        if (user.hasAnyRole(UserRole.MANAGER.bit() | UserRole.OWNER.bit())) {
+            return;
+        }
+        long foreign = candidates.stream()
+                .filter(candidate -> !user.id().equals(candidate.getCreatedById()))
+                .count();
+        if (foreign > 0) {
+            throw new AccessDeniedException(
+                    String.format(
+                            "User %d cannot delete %d of the selected resources in project %d. "
+                                    + "Only file creator or project manager can delete files",
+                            user.id(), foreign, projectId));
+        }
     }
 
     private List<UserRole> convertRolesToUserRoles(Set<UserRole> roles) {
@@ -415,7 +1329,7 @@ public class FileStorageService {
     }
 
     private Project findProjectById(Long projectId) {
-        return projectRepository.findByIdWithLock(projectId)
+        return projectRepository.findById(projectId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         String.format("Project not found: projectId=%d", projectId)));
     }
@@ -441,12 +1355,12 @@ public class FileStorageService {
         }
     }
 
-    private Resource buildResource(MultipartFile file, String key, String contentType,
+    private Resource buildResource(String fileName, long size, String key, String contentType,
                                   List<UserRole> userRoleList, Project project, User user) {
         return Resource.builder()
-                .name(file.getOriginalFilename())
+                .name(fileName)
                 .key(key)
-                .size(BigInteger.valueOf(file.getSize()))
+                .size(BigInteger.valueOf(size))
                 .contentType(contentType)
                 .type(ResourceType.getResourceType(contentType))
                 .status(ResourceStatus.ACTIVE)
@@ -0,0 +1,188 @@
+package com.filestorage.service;
+
+import com.filestorage.config.FileSystemStoreProperties;
+import com.filestorage.util.BoundedInputStream;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link ObjectStore} keeping objects as files under a local or NFS-mounted directory,
+ * for small deployments and edge nodes that do not run MinIO.
+ * <p>
+ * Writes go to a temporary file next to the target, are flushed to disk and then renamed
+ * into place atomically, so readers see either the whole object or none of it. Reads use
+ * {@link FileChannel}, and downloads are served from the file with zero-copy transfers.
+ * Presigned URLs point at {@code /api/v1/objects} and carry an HMAC of the key and expiry.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file-storage.object-store", havingValue = "filesystem")
+public class FileSystemObjectStore implements ObjectStore {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final FileSystemStoreProperties properties;
+
+    private Path root;
+    private SecretKeySpec signingKey;
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Path.of(properties.getRoot()).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        byte[] key;
+        if (properties.getSigningKey() != null && !properties.getSigningKey().isBlank()) {
+            key = properties.getSigningKey().getBytes(StandardCharsets.UTF_8);
+        } else {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            log.warn("No file-storage.filesystem.signing-key set; presigned URLs will not survive a restart "
+                    + "and only work on the node that issued them");
+        }
+        signingKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        log.info("Filesystem object store in {}", root);
+    }
+
+    @Override
+    public String put(String key, InputStream content, long size, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(content);
+                long transferred;
+                while ((transferred = channel.transferFrom(source, written, TRANSFER_CHUNK_SIZE)) > 0) {
+                    written += transferred;
+                }
+                if (properties.isFsync()) {
+                    channel.force(true);
+                }
+            }
+            if (size >= 0 && written != size) {
+                throw new IOException(String.format("Object %s: expected %d bytes, received %d", key, size, written));
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // The filesystem keeps no entity tag to report
+            return null;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, Long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ).position(offset);
+        InputStream content = Channels.newInputStream(channel);
+        return length != null ? new BoundedInputStream(content, length) : content;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Map<String, String> deleteAll(Collection<String> keys) {
+        Map<String, String> failures = new HashMap<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (IOException | IllegalArgumentException e) {
+                failures.put(key, e.toString());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public String presign(String key, int expirySeconds) {
+        resolve(key);
+        long expires = Instant.now().getEpochSecond() + expirySeconds;
+        return UriComponentsBuilder.fromHttpUrl(properties.getPublicUrl())
+                .path("/api/v1/objects")
+                .queryParam("key", key)
+                .queryParam("expires", expires)
+                .queryParam("signature", sign(key, expires))
+                .encode()
+                .toUriString();
+    }
+
+    @Override
+    public Optional<LocalObjectCache.CachedObject> findLocal(String key) {
+        Path path = resolve(key);
+        try {
+            return Optional.of(new LocalObjectCache.CachedObject(path, Files.size(path)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to stat object {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks a presigned URL issued by {@link #presign}: the signature must match and the
+     * expiry must not have passed.
+     */
+    public boolean verify(String key, long expires, String signature) {
+        if (signature == null || expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                sign(key, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String sign(String key, long expires) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal((key + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Maps a key to its file, refusing keys that would leave the root directory.
+     */
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException(String.format("Invalid object key: %s", key));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,567 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ObjectCacheProperties;
+import com.filestorage.util.BoundedInputStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Single-flight reads of whole objects, and an optional on-node disk cache of them in
+ * front of MinIO.
+ * <p>
+ * Full reads that miss the cache are single-flight whether or not the cache is enabled:
+ * the first request for a key opens MinIO and a background thread spools the object to a
+ * local file as fast as MinIO delivers it, while every concurrent request for the same
+ * key follows that file at its own pace. The spool file is the only buffer, so a slow
+ * client never holds back the download or the other clients. Spool files are bounded by
+ * {@code max-spool-bytes}, reserved from the object size when a fetch starts; a read that
+ * does not fit goes to MinIO on its own. With the cache enabled, a completed spool
+ * becomes the cache entry.
+ * <p>
+ * Entries are evicted least recently used first once the cache grows past its byte
+ * budget. Storage keys are never reused for different content, so the only invalidation
+ * needed is on delete.
+ * Evicted files may still be open by readers; they keep reading from the unlinked file.
+ * A reader that opens the file only later, such as Tomcat's sendfile, is handed a hard
+ * link of its own instead (see {@link #link}), which eviction does not remove.
+ * <p>
+ * State is guarded by {@link ReentrantLock}s rather than monitors: readers following a
+ * spool block for as long as MinIO takes, and a virtual thread blocked in a monitor pins
+ * its carrier thread, while one waiting on a lock condition unmounts.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LocalObjectCache {
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+    // Sendfile opens its file as soon as the servlet returns; the link outlives that by far
+    private static final long LINK_TTL_MILLIS = 60_000;
+
+    private final ObjectCacheProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CachedObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, InFlightFetch> inFlight = new HashMap<>();
+    private long usedBytes;
+    // Object sizes reserved by the fetches in flight, bounding their spool files
+    private long spoolBytes;
+    private Path directory;
+    private ExecutorService fetchExecutor;
+    private ScheduledExecutorService linkReaper;
+
+    @PostConstruct
+    private void init() throws IOException {
+        if (!properties.isEnabled() && !sharesFetches()) {
+            return;
+        }
+        directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        // The index lives in memory only, so files left over from a previous run are unknown
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            leftovers.forEach(LocalObjectCache::deleteQuietly);
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        fetchExecutor = Executors.newFixedThreadPool(properties.getFetchThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "object-fetch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        linkReaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "object-cache-link-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            log.info("Object cache enabled in {} ({} bytes)", directory, properties.getMaxBytes());
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+        if (linkReaper != null) {
+            linkReaper.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Whether concurrent full reads of an object share one upstream read, see {@link #fetch}.
+     */
+    public boolean sharesFetches() {
+        return properties.getMaxSpoolBytes() > 0;
+    }
+
+    public Optional<CachedObject> get(String key) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(entries.get(key));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the full content of an object of {@code size} bytes: from the cache on a hit,
+     * by following a fetch already in flight for the same key, or by starting one with
+     * {@code opener}. Only the request that starts a fetch calls MinIO, and it does so
+     * before returning, so a failure to open the object still surfaces to its caller. When
+     * the spool budget cannot take another {@code size} bytes, the object is read straight
+     * from {@code opener} without being shared.
+     */
+    public InputStream fetch(String key, long size, ObjectOpener opener) throws Exception {
+        InFlightFetch fetch;
+        SpoolInputStream reader = null;
+        boolean leader = false;
+        lock.lock();
+        try {
+            CachedObject cached = entries.get(key);
+            if (cached != null) {
+                return cached.open(0, null);
+            }
+            fetch = inFlight.get(key);
+            if (fetch == null && spoolBytes + size <= properties.getMaxSpoolBytes()) {
+                fetch = new InFlightFetch(key, Files.createTempFile(directory, "fetch-", ".tmp"), size);
+                inFlight.put(key, fetch);
+                spoolBytes += size;
+                leader = true;
+            }
+            if (fetch != null) {
+                // Opened while the spool is guaranteed to still be in place; the open channel
+                // stays readable after the file is renamed into the cache or deleted
+                reader = new SpoolInputStream(fetch);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (fetch == null) {
+            log.debug("Spool budget exhausted, reading {} without sharing it", key);
+            return opener.open();
+        }
+        if (!leader) {
+            log.debug("Joined in-flight fetch of {}", key);
+            return reader;
+        }
+
+        InFlightFetch started = fetch;
+        try {
+            InputStream upstream = opener.open();
+            try {
+                fetchExecutor.execute(() -> spool(started, upstream));
+            } catch (RejectedExecutionException e) {
+                upstream.close();
+                throw e;
+            }
+        } catch (Exception e) {
+            finish(started, e);
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    /**
+     * Hard-links the file of a cache entry under a name of its own, for a reader that opens
+     * the path only after this call returns. The content stays on disk through the link if
+     * the entry is evicted or invalidated meanwhile; the link is removed after a minute,
+     * long after the reader has opened it, so an evicted entry may outlast the budget for
+     * that long. Returns empty if the entry is already gone or links are not supported.
+     */
+    public Optional<Path> link(CachedObject object) {
+        Path link = directory.resolve("link-" + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createLink(link, object.path());
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Failed to link cached file {}: {}", object.path(), e.getMessage());
+            return Optional.empty();
+        }
+        try {
+            linkReaper.schedule(() -> deleteQuietly(link), LINK_TTL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(link);
+            return Optional.empty();
+        }
+        return Optional.of(link);
+    }
+
+    public void invalidate(String key) {
+        CachedObject removed;
+        lock.lock();
+        try {
+            InFlightFetch fetch = inFlight.remove(key);
+            if (fetch != null) {
+                fetch.invalidated = true;
+            }
+            removed = entries.remove(key);
+            if (removed != null) {
+                usedBytes -= removed.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed != null) {
+            deleteQuietly(removed.path());
+            log.debug("Invalidated cached object {}", key);
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void spool(InFlightFetch fetch, InputStream upstream) {
+        Exception failure = null;
+        try (upstream; FileChannel spool = FileChannel.open(fetch.spool, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+            int n;
+            while ((n = upstream.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                while (chunk.hasRemaining()) {
+                    spool.write(chunk);
+                }
+                if (!fetch.advance(n, properties.isEnabled() ? properties.getMaxObjectSize() : 0)) {
+                    throw new IOException("All readers left before the object could be cached");
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Fetch of {} stopped: {}", fetch.key, e.getMessage());
+            failure = e;
+        }
+        finish(fetch, failure);
+    }
+
+    private void finish(InFlightFetch fetch, Exception failure) {
+        long size = fetch.written();
+        boolean admitted = false;
+        List<Path> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            inFlight.remove(fetch.key, fetch);
+            spoolBytes -= fetch.reserved;
+            if (properties.isEnabled() && failure == null && !fetch.invalidated
+                    && size > 0 && size <= properties.getMaxObjectSize()) {
+                admitted = admit(fetch.key, fetch.spool, size, evicted);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!admitted) {
+            // Readers still following the spool keep their open channel after the unlink
+            deleteQuietly(fetch.spool);
+        }
+        evicted.forEach(LocalObjectCache::deleteQuietly);
+        fetch.complete(failure);
+    }
+
+    /**
+     * Moves a finished spool into the cache and evicts the least recently used entries
+     * until the budget holds again. Must be called with the cache lock held; evicted
+     * files are collected so they can be deleted outside it.
+     */
+    private boolean admit(String key, Path spool, long size, List<Path> evicted) {
+        Path target = directory.resolve(fileNameFor(key));
+        try {
+            Files.move(spool, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to cache object {}: {}", key, e.getMessage());
+            return false;
+        }
+        CachedObject previous = entries.put(key, new CachedObject(target, size, true));
+        if (previous != null) {
+            usedBytes -= previous.size();
+        }
+        usedBytes += size;
+
+        evictOverBudget(key, evicted);
+        log.debug("Cached object {} ({} bytes), evicted {}", key, size, evicted.size());
+        return true;
+    }
+
+    /**
+     * Evicts least recently used entries other than {@code keep} until the budget holds
+     * again or no entry is left. Must be called with the cache lock held.
+     */
+    private void evictOverBudget(String keep, List<Path> evicted) {
+        Iterator<Map.Entry<String, CachedObject>> eldest = entries.entrySet().iterator();
+        while (usedBytes > properties.getMaxBytes() && eldest.hasNext()) {
+            Map.Entry<String, CachedObject> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            usedBytes -= entry.getValue().size();
+            evicted.add(entry.getValue().path());
+        }
+    }
+
+    private static String fileNameFor(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file {}", path, e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ObjectOpener {
+        InputStream open() throws Exception;
+    }
+
+    /**
+     * An object on local disk. Files are never modified once published, only replaced or
+     * deleted. {@code evictable} files belong to the cache and may be deleted at any time,
+     * so they must be opened before a response that depends on them is committed.
+     */
+    public record CachedObject(Path path, long size, boolean evictable) {
+
+        public CachedObject(Path path, long size) {
+            this(path, size, false);
+        }
+
+        public InputStream open(long offset, Long length) throws IOException {
+            FileChannel channel = openChannel().position(offset);
+            InputStream content = Channels.newInputStream(channel);
+            return length != null ? new BoundedInputStream(content, length) : content;
+        }
+
+        /**
+         * Opens the file for reading. The channel stays readable if the file is evicted
+         * or deleted afterwards.
+         */
+        public FileChannel openChannel() throws IOException {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        public void transferTo(long offset, long count, OutputStream outputStream) throws IOException {
+            try (FileChannel channel = openChannel()) {
+                transferTo(channel, offset, count, outputStream);
+            }
+        }
+
+        /**
+         * Copies {@code count} bytes starting at {@code offset} from a channel opened with
+         * {@link #openChannel()} to {@code outputStream}. The copy goes through a buffer in
+         * user space; a transfer that should stay in the kernel must go through sendfile.
+         */
+        public void transferTo(FileChannel channel, long offset, long count, OutputStream outputStream)
+                throws IOException {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = offset;
+            long end = offset + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException(String.format("Cached file %s ended at byte %d", path, position));
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * One upstream read of an object into a spool file. Guarded by its own lock, whose
+     * condition readers wait on for more bytes.
+     */
+    private static class InFlightFetch {
+        private final String key;
+        private final Path spool;
+        // Bytes of the spool budget held until the fetch finishes; guarded by the cache lock
+        private final long reserved;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition progress = lock.newCondition();
+        private long written;
+        private int readers;
+        private boolean done;
+        private Exception failure;
+        private volatile boolean invalidated;
+
+        InFlightFetch(String key, Path spool, long reserved) {
+            this.key = key;
+            this.spool = spool;
+            this.reserved = reserved;
+        }
+
+        long written() {
+            lock.lock();
+            try {
+                return written;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Records {@code n} more spooled bytes. Returns {@code false} when nobody is
+         * reading any more and the object is too large to be worth finishing for the cache.
+         */
+        boolean advance(int n, long maxObjectSize) {
+            lock.lock();
+            try {
+                written += n;
+                progress.signalAll();
+                return readers > 0 || written <= maxObjectSize;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void complete(Exception failure) {
+            lock.lock();
+            try {
+                this.done = true;
+                this.failure = failure;
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void readerOpened() {
+            lock.lock();
+            try {
+                readers++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void readerClosed() {
+            lock.lock();
+            try {
+                readers--;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Blocks until there are bytes past {@code position} and returns how many, or
+         * returns {@code -1} once the fetch finished and everything has been read.
+         */
+        long awaitBytesAfter(long position) throws IOException {
+            lock.lock();
+            try {
+                while (written <= position && !done) {
+                    try {
+                        progress.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for " + key);
+                    }
+                }
+                if (written > position) {
+                    return written - position;
+                }
+                if (failure != null) {
+                    throw new IOException(String.format("Failed to fetch object %s", key), failure);
+                }
+                return -1;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class SpoolInputStream extends InputStream {
+        private final InFlightFetch fetch;
+        private final FileChannel channel;
+        private long position;
+        private boolean closed;
+
+        SpoolInputStream(InFlightFetch fetch) throws IOException {
+            this.fetch = fetch;
+            this.channel = FileChannel.open(fetch.spool, StandardOpenOption.READ);
+            fetch.readerOpened();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long available = fetch.awaitBytesAfter(position);
+            if (available < 0) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                fetch.readerClosed();
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.filestorage.service;
+
+import com.filestorage.model.Project;
+import com.filestorage.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that drops cached snapshots when a {@link User} or {@link Project}
+ * is updated or removed. Hibernate obtains it from the Spring context.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetadataCacheInvalidator {
+
+    // Resolved lazily: entity listeners are created while the EntityManagerFactory starts
+    private final ObjectProvider<MetadataLookupService> metadataLookupService;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Object entity) {
+        MetadataLookupService lookups = metadataLookupService.getIfAvailable();
+        if (lookups == null) {
+            return;
+        }
+        if (entity instanceof User user) {
+            lookups.evictUser(user.getId());
+        } else if (entity instanceof Project project) {
+            lookups.evictProject(project.getId());
+        }
+    }
+}
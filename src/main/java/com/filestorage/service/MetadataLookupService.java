@@ -0,0 +1,50 @@
+package com.filestorage.service;
+
+import com.filestorage.dto.ProjectSnapshot;
+import com.filestorage.dto.UserSnapshot;
+import com.filestorage.exception.EntityNotFoundException;
+import com.filestorage.repository.ProjectRepository;
+import com.filestorage.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cached lookups of users and projects for the read paths (downloads, presigned URLs,
+ * listings), which only need ids, roles and limits. Entries expire after the TTL in
+ * {@code spring.cache.caffeine.spec} and are evicted when the entity is saved or deleted
+ * through JPA; role changes made directly in the database show up within the TTL.
+ * Missing users and projects are not cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetadataLookupService {
+    public static final String USERS_CACHE = "users";
+    public static final String PROJECTS_CACHE = "projects";
+
+    private final UserRepository userRepository;
+    private final ProjectRepository projectRepository;
+
+    @Cacheable(cacheNames = USERS_CACHE, key = "#userId")
+    public UserSnapshot getUser(Long userId) {
+        return userRepository.findSnapshotById(userId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        String.format("User not found: userId=%d", userId)));
+    }
+
+    @Cacheable(cacheNames = PROJECTS_CACHE, key = "#projectId")
+    public ProjectSnapshot getProject(Long projectId) {
+        return projectRepository.findSnapshotById(projectId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        String.format("Project not found: projectId=%d", projectId)));
+    }
+
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#userId")
+    public void evictUser(Long userId) {
+    }
+
+    @CacheEvict(cacheNames = PROJECTS_CACHE, key = "#projectId")
+    public void evictProject(Long projectId) {
+    }
+}
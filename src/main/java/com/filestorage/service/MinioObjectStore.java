@@ -0,0 +1,145 @@
+package com.filestorage.service;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ObjectStore} backed by a MinIO (or any S3-compatible) bucket. Large objects and
+ * streams of unknown length go through {@link ParallelMultipartUploader}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file-storage.object-store", havingValue = "minio", matchIfMissing = true)
+public class MinioObjectStore implements ObjectStore {
+
+    private final MinioClient minioClient;
+    private final ParallelMultipartUploader multipartUploader;
+
+    @Value("${minio.bucket-name}")
+    private String bucketName;
+
+    @Value("${file-storage.stream-part-size}")
+    private long streamPartSize;
+
+    @Override
+    public String put(String key, InputStream content, long size, String contentType) throws IOException {
+        try {
+            ObjectWriteResponse response;
+            if (multipartUploader.shouldUse(size)) {
+                response = multipartUploader.upload(bucketName, key, content, contentType);
+            } else {
+                response = minioClient.putObject(PutObjectArgs
+                        .builder()
+                        .bucket(bucketName)
+                        .object(key)
+                        .stream(content, size, size < 0 ? streamPartSize : -1)
+                        .contentType(contentType)
+                        .build());
+            }
+            return response != null ? response.etag() : null;
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(String.format("Failed to upload object %s to MinIO", key), e);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, Long length) throws IOException {
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(key);
+        if (offset > 0) {
+            args.offset(offset);
+        }
+        if (length != null) {
+            args.length(length);
+        }
+        try {
+            return minioClient.getObject(args.build());
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(String.format("Failed to read object %s from MinIO", key), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(key)
+                            .build()
+            );
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(String.format("Failed to remove object %s from MinIO", key), e);
+        }
+    }
+
+    @Override
+    public Map<String, String> deleteAll(Collection<String> keys) throws IOException {
+        List<DeleteObject> objects = keys.stream().map(DeleteObject::new).toList();
+        Map<String, String> failures = new HashMap<>();
+        try {
+            // Lazy: the request is only sent while the results are iterated
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(bucketName)
+                            .objects(objects)
+                            .build()
+            );
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                failures.put(error.objectName(), String.format("%s: %s", error.code(), error.message()));
+            }
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(String.format("Failed to remove %d objects from MinIO", keys.size()), e);
+        }
+        return failures;
+    }
+
+    @Override
+    public String presign(String key, int expirySeconds) throws IOException {
+        try {
+            return minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
+                            .bucket(bucketName)
+                            .object(key)
+                            .expiry(expirySeconds, TimeUnit.SECONDS)
+                            .build()
+            );
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(String.format("Failed to presign object %s", key), e);
+        }
+    }
+}
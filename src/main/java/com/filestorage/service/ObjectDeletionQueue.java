@@ -0,0 +1,163 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ObjectSweeperProperties;
+import com.filestorage.model.ObjectTombstone;
+import com.filestorage.repository.ObjectTombstoneRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes unreferenced objects from the object store in the background. Deletes only
+ * write a tombstone next to their status change and return; the sweeper then removes due
+ * tombstones with multi-object deletes of up to 1000 keys per request. Keys that fail
+ * are retried with exponential backoff, and the number of waiting tombstones is
+ * published as {@code storage.deletion.backlog}.
+ * <p>
+ * Several instances may sweep at the same time. They can pick the same tombstones, which
+ * only means an object is removed twice; removing a missing object succeeds.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ObjectDeletionQueue {
+    private static final int MAX_KEYS_PER_REQUEST = 1000; // S3 DeleteObjects limit
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final ObjectStore objectStore;
+    private final ObjectTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LocalObjectCache objectCache;
+    private final ObjectSweeperProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        Gauge.builder("storage.deletion.backlog", backlog, AtomicLong::get)
+                .description("Objects waiting to be removed from the object store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an object for removal. Joins the caller's transaction, so the tombstone is
+     * only written if the change that orphaned the object commits.
+     */
+    public void enqueue(String key) {
+        tombstoneRepository.save(ObjectTombstone.builder()
+                .key(key)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Queues the objects of the given resources with one statement, skipping objects
+     * held by a content blob. Must run in the caller's transaction before the resources'
+     * keys are cleared.
+     */
+    public int enqueueResources(Collection<Long> resourceIds) {
+        return tombstoneRepository.insertForResources(resourceIds, LocalDateTime.now());
+    }
+
+    @Scheduled(
+            fixedDelayString = "${file-storage.object-sweeper.interval-ms}",
+            initialDelayString = "${file-storage.object-sweeper.interval-ms}")
+    public void sweep() {
+        int batchSize = Math.max(1, Math.min(properties.getBatchSize(), MAX_KEYS_PER_REQUEST));
+        int removed = 0;
+        int failed = 0;
+        boolean more = true;
+        while (more) {
+            List<ObjectTombstone> batch = tombstoneRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            Map<String, String> failures = removeObjects(batch);
+            settle(batch, failures);
+            removed += batch.size() - failures.size();
+            failed += failures.size();
+            // A batch that failed as a whole points at the store being down; wait for the next run
+            more = batch.size() == batchSize && failures.size() < batch.size();
+        }
+
+        backlog.set(tombstoneRepository.count());
+        if (removed > 0 || failed > 0) {
+            log.info("Swept {} objects from storage, {} failed, {} waiting", removed, failed, backlog.get());
+        }
+    }
+
+    public long getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Removes the batch with one multi-object delete and returns the error per key
+     * that could not be removed.
+     */
+    private Map<String, String> removeObjects(List<ObjectTombstone> batch) {
+        List<String> keys = new ArrayList<>(batch.size());
+        for (ObjectTombstone tombstone : batch) {
+            objectCache.invalidate(tombstone.getKey());
+            keys.add(tombstone.getKey());
+        }
+
+        try {
+            return objectStore.deleteAll(keys);
+        } catch (Exception e) {
+            log.warn("Failed to remove a batch of {} objects from storage", batch.size(), e);
+            Map<String, String> failures = new HashMap<>();
+            batch.forEach(tombstone -> failures.put(tombstone.getKey(), e.toString()));
+            return failures;
+        }
+    }
+
+    private void settle(List<ObjectTombstone> batch, Map<String, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> done = new ArrayList<>();
+        List<ObjectTombstone> retries = new ArrayList<>();
+        for (ObjectTombstone tombstone : batch) {
+            String error = failures.get(tombstone.getKey());
+            if (error == null) {
+                done.add(tombstone.getId());
+                continue;
+            }
+            int attempts = tombstone.getAttempts() + 1;
+            tombstone.setAttempts(attempts);
+            tombstone.setNextAttemptAt(now.plus(retryBackoffMillis(attempts), ChronoUnit.MILLIS));
+            tombstone.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            retries.add(tombstone);
+            log.debug("Failed to remove object {} from storage (attempt {}): {}", tombstone.getKey(), attempts, error);
+        }
+
+        transactionTemplate.execute(status -> {
+            if (!done.isEmpty()) {
+                tombstoneRepository.deleteAllByIdInBatch(done);
+            }
+            if (!retries.isEmpty()) {
+                tombstoneRepository.saveAll(retries);
+            }
+            return null;
+        });
+    }
+
+    private long retryBackoffMillis(int attempts) {
+        long backoff = properties.getRetryBackoffMillis() << Math.min(attempts - 1, 20);
+        return Math.min(backoff, properties.getMaxRetryBackoffMillis());
+    }
+}
@@ -0,0 +1,57 @@
+package com.filestorage.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Backend holding the bytes of stored objects. Metadata, quota and access rules stay in
+ * the database; implementations only move bytes under opaque keys.
+ * <p>
+ * The backend is chosen with {@code file-storage.object-store}: {@code minio} (the
+ * default) or {@code filesystem}.
+ */
+public interface ObjectStore {
+
+    /**
+     * Stores {@code content} under {@code key}. {@code size} is {@code -1} when the length
+     * is not known up front. A reader never sees a partially written object.
+     *
+     * @return the entity tag the backend reports for the stored object, or {@code null}
+     *         if it reports none
+     */
+    String put(String key, InputStream content, long size, String contentType) throws IOException;
+
+    /**
+     * Opens an object, or the {@code length} bytes starting at {@code offset} when
+     * {@code length} is not {@code null}.
+     */
+    InputStream get(String key, long offset, Long length) throws IOException;
+
+    /**
+     * Removes an object. Removing a missing object succeeds.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Removes several objects at once and returns the error per key that could not be
+     * removed. Throws when the backend could not be reached at all.
+     */
+    Map<String, String> deleteAll(Collection<String> keys) throws IOException;
+
+    /**
+     * Returns a URL that downloads the object without further authentication for
+     * {@code expirySeconds}.
+     */
+    String presign(String key, int expirySeconds) throws IOException;
+
+    /**
+     * Returns the object as a local file when the backend keeps it on this node, so it
+     * can be served with zero-copy transfers.
+     */
+    default Optional<LocalObjectCache.CachedObject> findLocal(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,86 @@
+package com.filestorage.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the calls of another {@link ObjectStore} on a pool of platform threads. Used in
+ * virtual-thread mode for the MinIO store: the MinIO SDK and OkHttp block on network I/O
+ * inside {@code synchronized} sections, which would pin the carrier thread of a virtual
+ * thread. Streams returned by {@link #get} are still read by the caller, since reading a
+ * response body takes no monitors.
+ */
+public class OffloadingObjectStore implements ObjectStore {
+
+    private final ObjectStore delegate;
+    private final ExecutorService executor;
+
+    public OffloadingObjectStore(ObjectStore delegate, ExecutorService executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String put(String key, InputStream content, long size, String contentType) throws IOException {
+        return call(() -> delegate.put(key, content, size, contentType));
+    }
+
+    @Override
+    public InputStream get(String key, long offset, Long length) throws IOException {
+        return call(() -> delegate.get(key, offset, length));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        call(() -> {
+            delegate.delete(key);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, String> deleteAll(Collection<String> keys) throws IOException {
+        return call(() -> delegate.deleteAll(keys));
+    }
+
+    @Override
+    public String presign(String key, int expirySeconds) throws IOException {
+        return call(() -> delegate.presign(key, expirySeconds));
+    }
+
+    @Override
+    public Optional<LocalObjectCache.CachedObject> findLocal(String key) {
+        return delegate.findLocal(key);
+    }
+
+    private <T> T call(Callable<T> task) throws IOException {
+        Future<T> future = executor.submit(task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the object store");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.filestorage.service;
+
+import com.filestorage.config.minio.MultipartMinioClient;
+import com.filestorage.config.minio.MultipartUploadProperties;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads large objects as S3 multipart uploads with several parts in flight at once.
+ * <p>
+ * Each upload gets a fixed pool of part buffers sized from the per-upload memory budget,
+ * so reading from the client blocks once all buffers are in flight. Failed parts are
+ * retried on their own; if a part keeps failing the whole upload is aborted.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file-storage.object-store", havingValue = "minio", matchIfMissing = true)
+public class ParallelMultipartUploader {
+
+    private final MultipartMinioClient multipartMinioClient;
+    private final MultipartUploadProperties properties;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    private void init() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getExecutorThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "multipart-upload-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns whether an object of the given size should go through the parallel path.
+     * Streams of unknown length ({@code size < 0}) always do.
+     */
+    public boolean shouldUse(long size) {
+        return properties.isEnabled() && (size < 0 || size >= properties.getThreshold());
+    }
+
+    public ObjectWriteResponse upload(String bucket, String key, InputStream content, String contentType)
+            throws Exception {
+        int partSize = properties.getPartSize();
+        int buffersPerUpload = (int) Math.max(1, Math.min(properties.getConcurrency(),
+                properties.getMemoryBudget() / partSize));
+
+        String uploadId = multipartMinioClient.createMultipartUpload(bucket, key, contentType).get();
+        log.debug("Started multipart upload {} for {} ({} parts in flight, {} bytes each)",
+                uploadId, key, buffersPerUpload, partSize);
+
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(buffersPerUpload);
+        int allocatedBuffers = 0;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<Part>> parts = new ArrayList<>();
+
+        try {
+            int partNumber = 1;
+            boolean endOfStream = false;
+            while (!endOfStream && failure.get() == null) {
+                byte[] buffer = buffers.poll();
+                if (buffer == null && allocatedBuffers < buffersPerUpload) {
+                    buffer = new byte[partSize];
+                    allocatedBuffers++;
+                } else if (buffer == null) {
+                    buffer = buffers.take();
+                }
+
+                int length = content.readNBytes(buffer, 0, partSize);
+                endOfStream = length < partSize;
+                if (length == 0 && partNumber > 1) {
+                    buffers.offer(buffer);
+                    break;
+                }
+
+                int currentPart = partNumber++;
+                byte[] partBuffer = buffer;
+                parts.add(executor.submit(() -> {
+                    try {
+                        return uploadPartWithRetry(bucket, key, uploadId, currentPart, partBuffer, length);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        buffers.offer(partBuffer);
+                    }
+                }));
+            }
+
+            Part[] completedParts = new Part[parts.size()];
+            for (int i = 0; i < parts.size(); i++) {
+                completedParts[i] = parts.get(i).get();
+            }
+
+            ObjectWriteResponse response = multipartMinioClient
+                    .completeMultipartUpload(bucket, key, uploadId, completedParts).get();
+            log.debug("Completed multipart upload {} for {} with {} parts", uploadId, key, completedParts.length);
+            return response;
+
+        } catch (Exception e) {
+            parts.forEach(part -> part.cancel(true));
+            abortQuietly(bucket, key, uploadId);
+            Throwable cause = failure.get() != null ? failure.get() : e;
+            if (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw cause instanceof Exception exception ? exception : e;
+        }
+    }
+
+    private Part uploadPartWithRetry(String bucket, String key, String uploadId,
+                                     int partNumber, byte[] data, int length) throws Exception {
+        int attempt = 0;
+        while (true) {
+            try {
+                return multipartMinioClient.uploadPart(bucket, key, uploadId, partNumber, data, length).get();
+            } catch (ExecutionException e) {
+                if (++attempt > properties.getMaxPartRetries()) {
+                    log.error("Part {} of multipart upload {} failed after {} attempts",
+                            partNumber, uploadId, attempt, e.getCause());
+                    throw e;
+                }
+                log.warn("Retrying part {} of multipart upload {} (attempt {}): {}",
+                        partNumber, uploadId, attempt, e.getCause() != null ? e.getCause().getMessage() : e);
+                Thread.sleep(properties.getRetryBackoffMillis() * attempt);
+            }
+        }
+    }
+
+    private void abortQuietly(String bucket, String key, String uploadId) {
+        try {
+            multipartMinioClient.abortMultipartUpload(bucket, key, uploadId).get();
+            log.info("Aborted multipart upload {} for {}", uploadId, key);
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} for {}", uploadId, key, e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.filestorage.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of presigned download URLs. Time is cut into buckets and a URL is
+ * reused for every request for the same object within a bucket, so pages that ask for
+ * the same objects over and over skip the signing. URLs are signed for the requested
+ * expiry plus one bucket, which keeps every URL handed out valid for at least the
+ * expiry the API advertises.
+ * <p>
+ * Callers check access before asking for a URL. The URL itself does not depend on who
+ * asked, so entries are keyed by object and bucket only.
+ */
+@Component
+public class PresignedUrlCache {
+    public static final String CACHE_NAME = "presignedUrls";
+    private static final long MAX_EXPIRY_SECONDS = 7 * 24 * 3600; // S3 signatures cannot live longer
+
+    private final long bucketSeconds;
+    private final Cache<Entry, String> urls;
+
+    public PresignedUrlCache(
+            @Value("${file-storage.presigned-url-cache.bucket-seconds}") long bucketSeconds,
+            @Value("${file-storage.presigned-url-cache.max-size}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.bucketSeconds = Math.max(bucketSeconds, 0);
+        this.urls = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(this.bucketSeconds, 1)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, urls, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return bucketSeconds > 0;
+    }
+
+    /**
+     * Returns a URL for {@code objectKey} that stays valid for at least
+     * {@code expirySeconds}, signing a new one with {@code signer} on a miss.
+     */
+    public String get(String objectKey, int expirySeconds, UrlSigner signer) {
+        if (!isEnabled()) {
+            return signer.sign(objectKey, expirySeconds);
+        }
+        long bucket = System.currentTimeMillis() / 1000 / bucketSeconds;
+        int signedExpiry = (int) Math.min(expirySeconds + bucketSeconds, MAX_EXPIRY_SECONDS);
+        return urls.get(new Entry(objectKey, expirySeconds, bucket),
+                entry -> signer.sign(objectKey, signedExpiry));
+    }
+
+    @FunctionalInterface
+    public interface UrlSigner {
+        String sign(String objectKey, int expirySeconds);
+    }
+
+    private record Entry(String objectKey, int expirySeconds, long bucket) {
+    }
+}
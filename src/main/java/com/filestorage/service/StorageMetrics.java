@@ -0,0 +1,282 @@
+package com.filestorage.service;
+
+import com.filestorage.model.ResourceType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-stage instrumentation of the upload and download pipelines, so a slow upload can be
+ * attributed to quota contention, the object store, the database or the client.
+ * <p>
+ * Every stage is recorded in the {@code storage.stage} timer, tagged with {@code stage},
+ * {@code outcome} ({@code success} or {@code failure}, a failure being a thrown exception)
+ * and the resource {@code type} where it is known. Byte transfers are tracked separately:
+ * {@code storage.transfer.throughput} is a summary of bytes per second per transfer,
+ * {@code storage.transfer.bytes} counts the bytes moved, and the gauges
+ * {@code storage.uploads.in-flight}, {@code storage.downloads.in-flight} and
+ * {@code storage.transfer.in-flight.bytes} show what is moving right now.
+ * <p>
+ * Meters are built once per tag combination and cached, as they are recorded on every
+ * request; the stage timer publishes a fixed set of SLO buckets rather than a percentile
+ * histogram to keep the number of series per tag combination small.
+ */
+@Component
+public class StorageMetrics {
+    public static final String VALIDATION = "validation";
+    public static final String CONTENT_DETECTION = "content-detection";
+    /** Client content type accepted without detection, see {@link ContentTypeDetector}. */
+    public static final String CONTENT_TRUSTED = "content-trusted";
+    /** The conditional quota UPDATE, which waits for the project row lock under contention. */
+    public static final String QUOTA_RESERVE = "quota-reserve";
+    public static final String DB_SAVE = "db-save";
+    public static final String OBJECT_PUT = "object-put";
+    public static final String OBJECT_GET = "object-get";
+    public static final String PRESIGN = "presign";
+    public static final String QUOTA_RECONCILE = "quota-reconcile";
+
+    private static final String UPLOAD = "upload";
+    private static final String DOWNLOAD = "download";
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+    private static final String UNKNOWN_TYPE = "unknown";
+    private static final Duration[] STAGE_SLOS = {
+            Duration.ofMillis(5), Duration.ofMillis(25), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30)
+    };
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger uploadsInFlight = new AtomicInteger();
+    private final AtomicInteger downloadsInFlight = new AtomicInteger();
+    private final LongAdder bytesInFlight = new LongAdder();
+    private final Map<StageKey, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<TransferKey, TransferMeters> transferMeters = new ConcurrentHashMap<>();
+
+    public StorageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("storage.uploads.in-flight", uploadsInFlight, AtomicInteger::get)
+                .description("Uploads currently transferring bytes to the object store")
+                .register(meterRegistry);
+        Gauge.builder("storage.downloads.in-flight", downloadsInFlight, AtomicInteger::get)
+                .description("Downloads currently streaming an object")
+                .register(meterRegistry);
+        Gauge.builder("storage.transfer.in-flight.bytes", bytesInFlight, LongAdder::sum)
+                .description("Bytes moved so far by the transfers still in progress")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs one stage and records its duration, with outcome {@code failure} if it throws.
+     */
+    public <T, E extends Exception> T time(String stage, ResourceType type, Stage<T, E> body) throws E {
+        long started = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            T result = body.run();
+            succeeded = true;
+            return result;
+        } finally {
+            record(stage, type, succeeded, started);
+        }
+    }
+
+    /**
+     * Like {@link #time}, for stages without a result.
+     */
+    public <E extends Exception> void run(String stage, ResourceType type, Step<E> body) throws E {
+        time(stage, type, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records a stage that started at {@code startedNanos} ({@link System#nanoTime()}) and
+     * has just ended, for stages that do not fit in a lambda.
+     */
+    public void record(String stage, ResourceType type, boolean succeeded, long startedNanos) {
+        stageTimers.computeIfAbsent(new StageKey(stage, succeeded, type), key -> Timer.builder("storage.stage")
+                        .description("Duration of a stage of the upload and download pipelines")
+                        .tag("stage", key.stage())
+                        .tag("outcome", key.succeeded() ? SUCCESS : FAILURE)
+                        .tag("type", typeTag(key.type()))
+                        .serviceLevelObjectives(STAGE_SLOS)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts tracking an upload; bytes are counted as they are read through
+     * {@link Transfer#meter} and the transfer ends when it is closed.
+     */
+    public Transfer startUpload(ResourceType type) {
+        return new Transfer(UPLOAD, type, uploadsInFlight);
+    }
+
+    /**
+     * Starts tracking a download that is not read through a stream, e.g. a local file
+     * copied with {@code transferTo}; report its size with {@link Transfer#transferred}.
+     */
+    public Transfer startDownload(ResourceType type) {
+        return new Transfer(DOWNLOAD, type, downloadsInFlight);
+    }
+
+    /**
+     * Wraps the stream of a download, which counts as in flight until the stream is closed.
+     */
+    public InputStream meterDownload(InputStream content, ResourceType type) {
+        Transfer transfer = startDownload(type);
+        return new MeteredInputStream(content, transfer, true);
+    }
+
+    private void transferEnded(String direction, ResourceType type, long bytes, long elapsedNanos) {
+        if (bytes <= 0) {
+            return;
+        }
+        TransferMeters meters = transferMeters.computeIfAbsent(new TransferKey(direction, type), key ->
+                new TransferMeters(
+                        Counter.builder("storage.transfer.bytes")
+                                .description("Bytes moved between clients and the object store")
+                                .baseUnit("bytes")
+                                .tag("direction", key.direction())
+                                .tag("type", typeTag(key.type()))
+                                .register(meterRegistry),
+                        DistributionSummary.builder("storage.transfer.throughput")
+                                .description("Throughput of a single transfer")
+                                .baseUnit("bytes.per.second")
+                                .tag("direction", key.direction())
+                                .tag("type", typeTag(key.type()))
+                                .register(meterRegistry)));
+        meters.bytes().increment(bytes);
+        if (elapsedNanos > 0) {
+            meters.throughput().record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        }
+    }
+
+    private static String typeTag(ResourceType type) {
+        return type != null ? type.name() : UNKNOWN_TYPE;
+    }
+
+    private record StageKey(String stage, boolean succeeded, ResourceType type) {
+    }
+
+    private record TransferKey(String direction, ResourceType type) {
+    }
+
+    private record TransferMeters(Counter bytes, DistributionSummary throughput) {
+    }
+
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    @FunctionalInterface
+    public interface Step<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * One upload or download in progress. Closing it more than once has no effect.
+     */
+    public final class Transfer implements Closeable {
+        private final String direction;
+        private final ResourceType type;
+        private final AtomicInteger inFlight;
+        private final long started = System.nanoTime();
+        private long bytes;
+        private boolean closed;
+
+        private Transfer(String direction, ResourceType type, AtomicInteger inFlight) {
+            this.direction = direction;
+            this.type = type;
+            this.inFlight = inFlight;
+            inFlight.incrementAndGet();
+        }
+
+        /**
+         * Counts the bytes read from {@code content} towards this transfer. Closing the
+         * returned stream does not end the transfer.
+         */
+        public InputStream meter(InputStream content) {
+            return new MeteredInputStream(content, this, false);
+        }
+
+        public void transferred(long count) {
+            bytes += count;
+            bytesInFlight.add(count);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            inFlight.decrementAndGet();
+            bytesInFlight.add(-bytes);
+            transferEnded(direction, type, bytes, System.nanoTime() - started);
+        }
+    }
+
+    private static final class MeteredInputStream extends FilterInputStream {
+        private final Transfer transfer;
+        private final boolean endsTransfer;
+
+        private MeteredInputStream(InputStream in, Transfer transfer, boolean endsTransfer) {
+            super(in);
+            this.transfer = transfer;
+            this.endsTransfer = endsTransfer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                transfer.transferred(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                transfer.transferred(n);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            // A reset would count the replayed bytes twice
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (endsTransfer) {
+                    transfer.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.filestorage.service;
+
+import com.filestorage.model.Project;
+import com.filestorage.repository.ProjectRepository;
+import com.filestorage.repository.ResourceRepository;
+import com.filestorage.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Uploads and deletes maintain {@code project.storage_size} incrementally, so a crash between
+ * the object transfer and the commit, or a manual fix in the database, can leave it out of
+ * step with the resources and active upload session reservations it describes. This job
+ * periodically brings it back in line.
+ * <p>
+ * Every instance runs the job. A drifted project is corrected under its row lock, which
+ * reservations and releases also take: the sum of its resources is read after the lock is
+ * granted, in a statement of its own, so it includes every reservation and release that
+ * committed before and none that commit after, and concurrent runs agree on the result.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StorageQuotaReconciler {
+    private static final int BATCH_SIZE = 500;
+
+    private final ProjectRepository projectRepository;
+    private final ResourceRepository resourceRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StorageMetrics storageMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(
+            fixedDelayString = "${file-storage.quota.reconcile-interval-ms}",
+            initialDelayString = "${file-storage.quota.reconcile-interval-ms}")
+    public void reconcile() {
+        storageMetrics.run(StorageMetrics.QUOTA_RECONCILE, null, this::reconcileAll);
+    }
+
+    private void reconcileAll() {
+        int corrected = 0;
+        long afterId = 0;
+        List<ProjectRepository.StorageUsage> batch;
+        do {
+            batch = projectRepository.findStorageUsage(afterId, PageRequest.of(0, BATCH_SIZE));
+            for (ProjectRepository.StorageUsage usage : batch) {
+                afterId = usage.getProjectId();
+                BigInteger actual = sizeOf(usage.getActualSize()).add(sizeOf(usage.getSessionReservedSize()));
+                if (!sizeOf(usage.getRecordedSize()).equals(actual)
+                        && Boolean.TRUE.equals(transactionTemplate.execute(status -> correct(usage.getProjectId())))) {
+                    corrected++;
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+        if (corrected > 0) {
+            log.info("Reconciled storage size of {} projects", corrected);
+        }
+    }
+
+    /**
+     * Re-reads the drift under the project row lock and corrects it, returning whether
+     * the size had to change.
+     */
+    private boolean correct(Long projectId) {
+        Optional<Project> project = projectRepository.findByIdWithLock(projectId);
+        if (project.isEmpty()) {
+            return false;
+        }
+        BigInteger recorded = sizeOf(project.get().getStorageSize());
+        BigInteger actual = sizeOf(resourceRepository.sumStorageSize(projectId))
+                .add(BigInteger.valueOf(uploadSessionRepository.sumReservedSize(projectId)));
+        if (recorded.equals(actual)) {
+            return false;
+        }
+        projectRepository.updateStorageSize(projectId, actual);
+        log.warn("Corrected storage size of project {} by {} bytes (recorded {}, actual {})",
+                projectId, actual.subtract(recorded), recorded, actual);
+        return true;
+    }
+
+    private static BigInteger sizeOf(BigInteger size) {
+        return size != null ? size : BigInteger.ZERO;
+    }
+
+    private static BigInteger sizeOf(Long size) {
+        return size != null ? BigInteger.valueOf(size) : BigInteger.ZERO;
+    }
+}
@@ -0,0 +1,434 @@
+package com.filestorage.service;
+
+import com.filestorage.config.minio.MultipartMinioClient;
+import com.filestorage.dto.CreateUploadSessionRequest;
+import com.filestorage.dto.UploadChunkResponse;
+import com.filestorage.dto.UploadSessionResponse;
+import com.filestorage.exception.ResourceNotFoundException;
+import com.filestorage.model.Resource;
+import com.filestorage.model.ResourceType;
+import com.filestorage.model.UploadSession;
+import com.filestorage.model.UploadSessionChunk;
+import com.filestorage.model.UploadSessionStatus;
+import com.filestorage.model.UserRole;
+import com.filestorage.repository.UploadSessionChunkRepository;
+import com.filestorage.repository.UploadSessionRepository;
+import com.filestorage.util.BoundedInputStream;
+import com.filestorage.util.ContentChecksums;
+import io.minio.messages.Part;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: a session wraps one MinIO multipart upload and every numbered
+ * chunk maps onto one part, so a client that loses its connection only re-sends the
+ * chunks that have not arrived yet.
+ * <p>
+ * A session holds quota for its declared size from creation until it is committed, aborted
+ * or expired; on commit the resource takes the reservation over. Each of these moves the
+ * session out of {@code ACTIVE} with a conditional update, so only one of them settles it.
+ * <p>
+ * Only available with the MinIO object store.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "file-storage.object-store", havingValue = "minio", matchIfMissing = true)
+public class UploadSessionService {
+    private static final int MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_CHUNKS = 10_000;
+
+    private final MultipartMinioClient multipartMinioClient;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadSessionChunkRepository chunkRepository;
+    private final FileStorageService fileStorageService;
+    private final ObjectDeletionQueue objectDeletionQueue;
+    private final ObjectStore objectStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Tika tika;
+
+    @Value("${minio.bucket-name}")
+    private String bucketName;
+
+    @Value("${file-storage.upload-sessions.chunk-size}")
+    private int chunkSize;
+
+    @Value("${file-storage.upload-sessions.ttl-hours}")
+    private long ttlHours;
+
+    @Value("${file-storage.max-file-size}")
+    private long maxFileSize;
+
+    /**
+     * Starts a session for a file of a declared size. The size is required so that the
+     * file size limit applies and the quota is reserved before any bytes are accepted, and
+     * every chunk is checked against it as it arrives.
+     */
+    public UploadSessionResponse createSession(CreateUploadSessionRequest request, Long projectId, Long userId) {
+        if (request.getTotalSize() == null || request.getTotalSize() <= 0) {
+            throw new IllegalArgumentException("Total size is required and must be positive");
+        }
+        long totalSize = request.getTotalSize();
+        fileStorageService.validateUpload(request.getFileName(), totalSize);
+        fileStorageService.validateStorageLimit(projectId, totalSize);
+
+        String key = fileStorageService.generateStorageKey(projectId, request.getFileName());
+        String contentType = tika.detect(request.getFileName());
+
+        String storageUploadId;
+        try {
+            storageUploadId = multipartMinioClient.createMultipartUpload(bucketName, key, contentType).get();
+        } catch (Exception e) {
+            log.error("Failed to start multipart upload for {} in project {}", request.getFileName(), projectId, e);
+            throw new RuntimeException("Failed to create upload session", e);
+        }
+
+        Set<UserRole> allowedRoles = request.getAllowedRoles() != null ? request.getAllowedRoles() : Set.of();
+        UploadSession draft = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .projectId(projectId)
+                .createdBy(userId)
+                .fileName(request.getFileName())
+                .contentType(contentType)
+                .key(key)
+                .storageUploadId(storageUploadId)
+                .chunkSize(Math.max(chunkSize, MIN_CHUNK_SIZE))
+                .totalSize(totalSize)
+                .reservedSize(totalSize)
+                .allowedRoles(new ArrayList<>(allowedRoles))
+                .status(UploadSessionStatus.ACTIVE)
+                .expiresAt(LocalDateTime.now().plusHours(ttlHours))
+                .build();
+        UploadSession session;
+        try {
+            session = transactionTemplate.execute(status -> {
+                fileStorageService.reserveStorage(projectId, totalSize, ResourceType.getResourceType(contentType));
+                return uploadSessionRepository.save(draft);
+            });
+        } catch (RuntimeException e) {
+            abortStorageUpload(draft);
+            throw e;
+        }
+
+        log.info("Created upload session {} for {} in project {}", session.getId(), key, projectId);
+        return UploadSessionResponse.from(session, List.of());
+    }
+
+    /**
+     * Stores one chunk as the multipart part of the same number. The body is spooled to a
+     * temporary file rather than held in memory, since the MinIO client hashes a part
+     * before sending it; it is rejected up front when its {@code contentLength} ({@code -1}
+     * if unknown) already exceeds the chunk size or the declared size, and cut off as soon
+     * as it does. An optional {@code contentMd5} (the {@code Content-MD5} header) is checked
+     * against the chunk before it is sent.
+     */
+    public UploadChunkResponse uploadChunk(String sessionId, int chunkNumber, InputStream content,
+                                           long contentLength, String contentMd5, Long projectId, Long userId) {
+        UploadSession session = findActiveSession(sessionId, projectId, userId);
+        String expectedMd5 = contentMd5 != null ? ContentChecksums.md5HexFromBase64(contentMd5) : null;
+
+        if (chunkNumber < 1 || chunkNumber > MAX_CHUNKS) {
+            throw new IllegalArgumentException(
+                    String.format("Chunk number must be between 1 and %d, got %d", MAX_CHUNKS, chunkNumber));
+        }
+        // Sessions created before the total size was required are bounded by the file size limit
+        long sizeLimit = session.getTotalSize() != null ? session.getTotalSize() : maxFileSize;
+        long offset = (long) (chunkNumber - 1) * session.getChunkSize();
+        if (offset >= sizeLimit) {
+            throw chunkBeyondLimit(chunkNumber, sizeLimit);
+        }
+        long maxLength = Math.min(session.getChunkSize(), sizeLimit - offset);
+        if (contentLength > maxLength) {
+            throw chunkTooLarge(session, chunkNumber, sizeLimit);
+        }
+
+        Path spool = null;
+        Part part;
+        long length;
+        try {
+            spool = Files.createTempFile("upload-chunk-", ".tmp");
+            try (RandomAccessFile file = new RandomAccessFile(spool.toFile(), "rw")) {
+                ContentChecksums checksums = new ContentChecksums();
+                InputStream bounded = new BoundedInputStream(content, maxLength);
+                length = (expectedMd5 != null ? checksums.wrap(bounded) : bounded)
+                        .transferTo(Channels.newOutputStream(file.getChannel()));
+                if (length == maxLength && content.read() != -1) {
+                    throw chunkTooLarge(session, chunkNumber, sizeLimit);
+                }
+                if (length == 0) {
+                    throw new IllegalArgumentException("Chunk cannot be empty");
+                }
+                if (expectedMd5 != null && !expectedMd5.equals(checksums.md5Hex())) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            String.format("Content-MD5 does not match chunk %d", chunkNumber));
+                }
+                file.seek(0);
+                part = multipartMinioClient.uploadPart(bucketName, session.getKey(), session.getStorageUploadId(),
+                        chunkNumber, file, length).get();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to read chunk %d of session %s", chunkNumber, sessionId), e);
+        } catch (ResponseStatusException | IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to upload chunk {} of session {}", chunkNumber, sessionId, e);
+            throw new RuntimeException(String.format("Failed to upload chunk %d", chunkNumber), e);
+        } finally {
+            deleteQuietly(spool);
+        }
+
+        // A re-sent chunk replaces the earlier part, also when two PUTs of it race
+        chunkRepository.upsertChunk(sessionId, chunkNumber, part.etag(), length);
+
+        log.debug("Stored chunk {} ({} bytes) of session {}", chunkNumber, length, sessionId);
+        return UploadChunkResponse.builder()
+                .uploadId(sessionId)
+                .chunkNumber(chunkNumber)
+                .size(length)
+                .etag(part.etag())
+                .build();
+    }
+
+    public UploadSessionResponse getSession(String sessionId, Long projectId, Long userId) {
+        UploadSession session = findSession(sessionId, projectId, userId);
+        return UploadSessionResponse.from(session, chunkRepository.findBySessionIdOrderByChunkNumber(sessionId));
+    }
+
+    /**
+     * Completes the multipart upload and registers the object as a resource. The assembled
+     * object is read back once to compute the checksums its content blob is keyed by, which
+     * also checks that the store holds as many bytes as the chunks added up to. The resource
+     * takes over the session's reservation in the transaction that marks the session
+     * completed; if that fails, or the session was aborted or expired in the meantime, the
+     * object is queued for removal.
+     */
+    public Resource commitSession(String sessionId, Long projectId, Long userId) {
+        UploadSession session = findActiveSession(sessionId, projectId, userId);
+        List<UploadSessionChunk> chunks = chunkRepository.findBySessionIdOrderByChunkNumber(sessionId);
+        long totalSize = validateChunks(session, chunks);
+
+        Part[] parts = chunks.stream()
+                .map(chunk -> new Part(chunk.getChunkNumber(), chunk.getEtag()))
+                .toArray(Part[]::new);
+        try {
+            multipartMinioClient.completeMultipartUpload(
+                    bucketName, session.getKey(), session.getStorageUploadId(), parts).get();
+        } catch (Exception e) {
+            log.error("Failed to complete multipart upload for session {}", sessionId, e);
+            throw new RuntimeException(String.format("Failed to commit upload session %s", sessionId), e);
+        }
+
+        Resource resource;
+        try {
+            ContentChecksums checksums = digestObject(session.getKey(), totalSize);
+            resource = fileStorageService.executeResolvingBlobs(status -> {
+                if (uploadSessionRepository.transitionStatus(
+                        sessionId, UploadSessionStatus.ACTIVE, UploadSessionStatus.COMPLETED) == 0) {
+                    throw new IllegalStateException(
+                            String.format("Upload session %s ended before it was committed", sessionId));
+                }
+                // Sessions created before sessions reserved quota reserve it now
+                if (session.getReservedSize() == null) {
+                    fileStorageService.reserveStorage(projectId, totalSize,
+                            ResourceType.getResourceType(session.getContentType()));
+                }
+                Resource registered = fileStorageService.registerUploadedObject(
+                        session.getKey(), session.getFileName(), totalSize, session.getContentType(),
+                        projectId, userId, Set.copyOf(session.getAllowedRoles()), checksums);
+                session.setStatus(UploadSessionStatus.COMPLETED);
+                session.setResourceId(registered.getId());
+                uploadSessionRepository.save(session);
+                return registered;
+            });
+        } catch (RuntimeException e) {
+            endSession(session, UploadSessionStatus.ABORTED, true);
+            throw e;
+        }
+
+        log.info("Committed upload session {} as resource {} ({} chunks, {} bytes)",
+                sessionId, resource.getId(), chunks.size(), totalSize);
+        return resource;
+    }
+
+    public void abortSession(String sessionId, Long projectId, Long userId) {
+        UploadSession session = findActiveSession(sessionId, projectId, userId);
+        if (!endSession(session, UploadSessionStatus.ABORTED, false)) {
+            throw new IllegalStateException(String.format("Upload session %s is no longer active", sessionId));
+        }
+        abortStorageUpload(session);
+        log.info("Aborted upload session {} in project {}", sessionId, projectId);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${file-storage.upload-sessions.cleanup-interval-ms}",
+            initialDelayString = "${file-storage.upload-sessions.cleanup-interval-ms}")
+    public void expireStaleSessions() {
+        List<UploadSession> expired = uploadSessionRepository
+                .findByStatusAndExpiresAtBefore(UploadSessionStatus.ACTIVE, LocalDateTime.now());
+        int count = 0;
+        for (UploadSession session : expired) {
+            if (endSession(session, UploadSessionStatus.EXPIRED, false)) {
+                abortStorageUpload(session);
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.info("Expired {} stale upload sessions", count);
+        }
+    }
+
+    private ResponseStatusException chunkTooLarge(UploadSession session, int chunkNumber, long sizeLimit) {
+        long offset = (long) (chunkNumber - 1) * session.getChunkSize();
+        if (sizeLimit - offset < session.getChunkSize()) {
+            return chunkBeyondLimit(chunkNumber, sizeLimit);
+        }
+        return new ResponseStatusException(
+                HttpStatus.PAYLOAD_TOO_LARGE,
+                String.format("Chunk %d exceeds session chunk size of %d bytes", chunkNumber, session.getChunkSize()));
+    }
+
+    private ResponseStatusException chunkBeyondLimit(int chunkNumber, long sizeLimit) {
+        return new ResponseStatusException(
+                HttpStatus.PAYLOAD_TOO_LARGE,
+                String.format("Chunk %d extends past the session size of %d bytes", chunkNumber, sizeLimit));
+    }
+
+    private long validateChunks(UploadSession session, List<UploadSessionChunk> chunks) {
+        if (chunks.isEmpty()) {
+            throw new IllegalStateException(
+                    String.format("Upload session %s has no chunks", session.getId()));
+        }
+
+        long totalSize = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            UploadSessionChunk chunk = chunks.get(i);
+            if (chunk.getChunkNumber() != i + 1) {
+                throw new IllegalStateException(
+                        String.format("Upload session %s is missing chunk %d", session.getId(), i + 1));
+            }
+            boolean lastChunk = i == chunks.size() - 1;
+            if (!lastChunk && chunk.getSize() != session.getChunkSize().longValue()) {
+                throw new IllegalStateException(
+                        String.format("Chunk %d of upload session %s has %d bytes, expected %d",
+                                chunk.getChunkNumber(), session.getId(), chunk.getSize(), session.getChunkSize()));
+            }
+            totalSize += chunk.getSize();
+        }
+
+        if (session.getTotalSize() != null && session.getTotalSize() != totalSize) {
+            throw new IllegalStateException(
+                    String.format("Upload session %s received %d bytes, declared %d",
+                            session.getId(), totalSize, session.getTotalSize()));
+        }
+        return totalSize;
+    }
+
+    private UploadSession findSession(String sessionId, Long projectId, Long userId) {
+        return uploadSessionRepository.findByIdAndProjectId(sessionId, projectId)
+                .filter(session -> session.getCreatedBy().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        String.format("Upload session %s not found in project %d", sessionId, projectId)));
+    }
+
+    private UploadSession findActiveSession(String sessionId, Long projectId, Long userId) {
+        UploadSession session = findSession(sessionId, projectId, userId);
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new IllegalStateException(
+                    String.format("Upload session %s is not active (status: %s)", sessionId, session.getStatus()));
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalStateException(String.format("Upload session %s has expired", sessionId));
+        }
+        return session;
+    }
+
+    /**
+     * Moves an active session to {@code status} and releases its reservation, returning
+     * {@code false} if a commit, abort or expiry got to it first. With {@code objectCompleted}
+     * the object of the completed multipart upload is queued for removal either way.
+     */
+    private boolean endSession(UploadSession session, UploadSessionStatus status, boolean objectCompleted) {
+        try {
+            Boolean ended = transactionTemplate.execute(tx -> {
+                if (objectCompleted) {
+                    objectDeletionQueue.enqueue(session.getKey());
+                }
+                if (uploadSessionRepository.transitionStatus(
+                        session.getId(), UploadSessionStatus.ACTIVE, status) == 0) {
+                    return false;
+                }
+                if (session.getReservedSize() != null) {
+                    fileStorageService.releaseStorage(session.getProjectId(), session.getReservedSize());
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(ended)) {
+                session.setStatus(status);
+                return true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to end upload session {} as {}", session.getId(), status, e);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the assembled object once to compute its checksums, failing if the store holds a
+     * different number of bytes than the session's chunks.
+     */
+    private ContentChecksums digestObject(String key, long expectedSize) {
+        ContentChecksums checksums = new ContentChecksums();
+        long size;
+        try (InputStream content = checksums.wrap(objectStore.get(key, 0, null))) {
+            size = content.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to read committed object %s", key), e);
+        }
+        if (size != expectedSize) {
+            throw new IllegalStateException(
+                    String.format("Committed object %s has %d bytes, expected %d", key, size, expectedSize));
+        }
+        return checksums;
+    }
+
+    private void abortStorageUpload(UploadSession session) {
+        try {
+            multipartMinioClient.abortMultipartUpload(
+                    bucketName, session.getKey(), session.getStorageUploadId()).get();
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload for session {}", session.getId(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete chunk spool {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.filestorage.util;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 and MD5 of a stream, computed while the stream is read for some other purpose
+ * so the content is not read a second time. SHA-256 identifies content blobs; MD5 is what
+ * S3-compatible stores use for {@code Content-MD5} and the ETag of a single-part upload.
+ */
+public final class ContentChecksums {
+
+    private final MessageDigest sha256 = newDigest("SHA-256");
+    private final MessageDigest md5 = newDigest("MD5");
+    private byte[] sha256Value;
+    private byte[] md5Value;
+
+    /**
+     * Wraps {@code content} so that every byte read from it is added to both checksums.
+     */
+    public InputStream wrap(InputStream content) {
+        return new DigestInputStream(new DigestInputStream(content, md5), sha256);
+    }
+
+    /**
+     * Lower-case hex SHA-256 of the bytes read so far. Only valid once the stream has been
+     * read to the end.
+     */
+    public String sha256Hex() {
+        return HexFormat.of().formatHex(sha256());
+    }
+
+    public String md5Hex() {
+        return HexFormat.of().formatHex(md5());
+    }
+
+    private byte[] sha256() {
+        if (sha256Value == null) {
+            sha256Value = sha256.digest();
+        }
+        return sha256Value;
+    }
+
+    private byte[] md5() {
+        if (md5Value == null) {
+            md5Value = md5.digest();
+        }
+        return md5Value;
+    }
+
+    /**
+     * Decodes a {@code Content-MD5} header value (base64 of the 16 digest bytes) to
+     * lower-case hex.
+     *
+     * @throws IllegalArgumentException if the value is not a base64-encoded MD5 digest
+     */
+    public static String md5HexFromBase64(String contentMd5) {
+        byte[] digest;
+        try {
+            digest = Base64.getDecoder().decode(contentMd5.trim());
+        } catch (IllegalArgumentException e) {
+            digest = null;
+        }
+        if (digest == null || digest.length != 16) {
+            throw new IllegalArgumentException("Content-MD5 must be the base64-encoded MD5 digest of the content");
+        }
+        return HexFormat.of().formatHex(digest);
+    }
+
+    /**
+     * Formats a stored hex digest for a {@code Digest} header, which carries it base64-encoded.
+     */
+    public static String hexToBase64(String hex) {
+        return Base64.getEncoder().encodeToString(HexFormat.of().parseHex(hex));
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.filestorage.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by {@code created_at DESC, id DESC}: the sort key of the
+ * last row a client has seen. Encoded as URL-safe Base64 so clients treat it as opaque.
+ */
+public record ResourceCursor(LocalDateTime createdAt, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String value = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ResourceCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new ResourceCursor(
+                    LocalDateTime.parse(value.substring(0, Math.max(separator, 0))),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // Covers bad Base64 and NumberFormatException, both IllegalArgumentExceptions
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.filestorage.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from the wrapped stream and fails as soon as the count
+ * goes past {@code maxBytes}, so an oversized body is rejected while it is still
+ * being streamed instead of after it has been stored.
+ */
+public class SizeLimitingInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long bytesRead;
+    private long markedBytesRead;
+
+    public SizeLimitingInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        super.mark(readlimit);
+        markedBytesRead = bytesRead;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        bytesRead = markedBytesRead;
+    }
+
+    private void count(long n) throws SizeLimitExceededException {
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            throw new SizeLimitExceededException(maxBytes);
+        }
+    }
+
+    public static class SizeLimitExceededException extends IOException {
+        public SizeLimitExceededException(long maxBytes) {
+            super(String.format("Stream exceeds maximum allowed size of %d bytes", maxBytes));
+        }
+    }
+}
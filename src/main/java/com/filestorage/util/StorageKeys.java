@@ -0,0 +1,99 @@
+package com.filestorage.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds object keys of the form {@code project-<id>/<epoch millis>-<random id>-<file name>}
+ * in one pass over the file name. The random id has the layout of a random UUID's string
+ * form cut to the requested length, but comes from {@link ThreadLocalRandom}: keys only
+ * need to be unique, and the {@code SecureRandom} behind {@link java.util.UUID#randomUUID()}
+ * is shared by all upload threads.
+ */
+public final class StorageKeys {
+    private static final String PROJECT_PREFIX = "project-";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int UUID_LENGTH = 36;
+    // "project-", two longs, "/" and "-"
+    private static final int MAX_PREFIX_LENGTH = PROJECT_PREFIX.length() + 2 * 20 + 2;
+
+    private StorageKeys() {
+    }
+
+    public static String build(long projectId, long timestampMillis, int idLength, String fileName) {
+        String sanitized = sanitizeFileName(fileName);
+        int length = Math.min(idLength, UUID_LENGTH);
+        StringBuilder key = new StringBuilder(MAX_PREFIX_LENGTH + length + 1 + sanitized.length());
+        key.append(PROJECT_PREFIX).append(projectId).append('/')
+                .append(timestampMillis).append('-');
+        appendRandomId(key, length);
+        return key.append('-').append(sanitized).toString();
+    }
+
+    /**
+     * Replaces every run of characters other than ASCII letters, digits, {@code .} and
+     * {@code -} with a single {@code _} and lower-cases the letters. A name that is
+     * already clean is returned as is.
+     */
+    public static String sanitizeFileName(String fileName) {
+        int length = fileName.length();
+        int clean = 0;
+        while (clean < length && isKept(fileName.charAt(clean))) {
+            clean++;
+        }
+        if (clean == length) {
+            return fileName;
+        }
+
+        char[] sanitized = new char[length];
+        fileName.getChars(0, clean, sanitized, 0);
+        int size = clean;
+        boolean afterReplacement = false;
+        for (int i = clean; i < length; i++) {
+            char c = fileName.charAt(i);
+            if (isAllowed(c)) {
+                sanitized[size++] = toLowerCase(c);
+                afterReplacement = false;
+            } else if (!afterReplacement) {
+                sanitized[size++] = '_';
+                afterReplacement = true;
+            }
+        }
+        return new String(sanitized, 0, size);
+    }
+
+    /**
+     * Appends {@code length} characters of a version 4 UUID string: lower-case hex digits
+     * with dashes after the 8th, 12th, 16th and 20th digit.
+     */
+    private static void appendRandomId(StringBuilder key, int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificant = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSignificant = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        int written = 0;
+        for (int digit = 0; digit < 32 && written < length; digit++) {
+            if (digit == 8 || digit == 12 || digit == 16 || digit == 20) {
+                key.append('-');
+                if (++written == length) {
+                    return;
+                }
+            }
+            long bits = digit < 16 ? mostSignificant : leastSignificant;
+            int shift = 60 - (digit % 16) * 4;
+            key.append(HEX_DIGITS[(int) (bits >>> shift) & 0xF]);
+            written++;
+        }
+    }
+
+    private static boolean isAllowed(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
+    }
+
+    private static boolean isKept(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,38 @@
+package com.filestorage.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads from code that is still compiled for Java 17. The build
+ * targets 17 unless {@code -PjavaVersion=21} is given, so the Java 21 API is looked up
+ * at runtime.
+ */
+public final class VirtualThreads {
+    private static final int MIN_FEATURE_VERSION = 21;
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     *
+     * @throws IllegalStateException when the runtime is older than Java 21
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new IllegalStateException(String.format(
+                    "Virtual threads need Java %d or newer, running on %s", MIN_FEATURE_VERSION, Runtime.version()));
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create a virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+-- Create upload_session table for resumable chunked uploads
+CREATE TABLE IF NOT EXISTS upload_session (
+    id VARCHAR(36) PRIMARY KEY,
+    project_id BIGINT NOT NULL,
+    created_by BIGINT NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    key VARCHAR(512) NOT NULL,
+    storage_upload_id VARCHAR(1024) NOT NULL,
+    chunk_size INTEGER NOT NULL,
+    total_size BIGINT,
+    status VARCHAR(50) NOT NULL DEFAULT 'ACTIVE',
+    resource_id BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (project_id) REFERENCES project(id) ON DELETE CASCADE,
+    FOREIGN KEY (created_by) REFERENCES app_user(id) ON DELETE CASCADE,
+    FOREIGN KEY (resource_id) REFERENCES resource(id) ON DELETE SET NULL
+);
+
+-- Create upload_session_allowed_roles table
+CREATE TABLE IF NOT EXISTS upload_session_allowed_roles (
+    session_id VARCHAR(36) NOT NULL,
+    role VARCHAR(50) NOT NULL,
+    PRIMARY KEY (session_id, role),
+    FOREIGN KEY (session_id) REFERENCES upload_session(id) ON DELETE CASCADE
+);
+
+-- Create upload_session_chunk table (one row per MinIO multipart part)
+CREATE TABLE IF NOT EXISTS upload_session_chunk (
+    id BIGSERIAL PRIMARY KEY,
+    session_id VARCHAR(36) NOT NULL,
+    chunk_number INTEGER NOT NULL,
+    etag VARCHAR(255) NOT NULL,
+    size BIGINT NOT NULL,
+    uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (session_id, chunk_number),
+    FOREIGN KEY (session_id) REFERENCES upload_session(id) ON DELETE CASCADE
+);
+
+-- Create indexes
+CREATE INDEX IF NOT EXISTS idx_upload_session_status_expires ON upload_session(status, expires_at);
@@ -0,0 +1,27 @@
+-- Create content_blob table for content-addressed deduplication
+CREATE TABLE IF NOT EXISTS content_blob (
+    id BIGSERIAL PRIMARY KEY,
+    sha256 VARCHAR(64) NOT NULL UNIQUE,
+    key VARCHAR(512) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 1,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Link resources to the blob holding their content
+ALTER TABLE resource
+ADD COLUMN IF NOT EXISTS blob_id BIGINT;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_constraint
+        WHERE conname = 'fk_resource_blob'
+    ) THEN
+        ALTER TABLE resource
+        ADD CONSTRAINT fk_resource_blob
+        FOREIGN KEY (blob_id) REFERENCES content_blob(id) ON DELETE SET NULL;
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_resource_blob ON resource(blob_id);
@@ -0,0 +1,4 @@
+-- Keyset pagination over a project's files walks this index in order,
+-- so late pages cost the same as the first one
+CREATE INDEX IF NOT EXISTS idx_resource_project_status_created
+    ON resource(project_id, status, created_at DESC, id DESC);
@@ -0,0 +1,59 @@
+-- Role sets as bitmasks (bit = UserRole ordinal) so access checks are a single AND
+ALTER TABLE app_user
+ADD COLUMN IF NOT EXISTS roles_mask INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE resource
+ADD COLUMN IF NOT EXISTS allowed_roles_mask INTEGER NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION user_role_bit(role VARCHAR) RETURNS INTEGER AS $$
+    SELECT CASE role
+        WHEN 'OWNER' THEN 1
+        WHEN 'MANAGER' THEN 2
+        WHEN 'DEVELOPER' THEN 4
+        WHEN 'DESIGNER' THEN 8
+        WHEN 'TESTER' THEN 16
+        WHEN 'ANALYST' THEN 32
+        WHEN 'VIEWER' THEN 64
+        ELSE 0
+    END;
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Backfill existing rows
+UPDATE app_user u
+SET roles_mask = COALESCE(
+    (SELECT bit_or(user_role_bit(ur.role)) FROM user_roles ur WHERE ur.user_id = u.id), 0);
+
+UPDATE resource r
+SET allowed_roles_mask = COALESCE(
+    (SELECT bit_or(user_role_bit(ar.role)) FROM resource_allowed_roles ar WHERE ar.resource_id = r.id), 0);
+
+-- user_roles may be written outside this service, so keep the user mask in step with it
+CREATE OR REPLACE FUNCTION refresh_user_roles_mask() RETURNS TRIGGER AS $$
+DECLARE
+    target_user BIGINT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        target_user := OLD.user_id;
+    ELSE
+        target_user := NEW.user_id;
+    END IF;
+
+    UPDATE app_user
+    SET roles_mask = COALESCE(
+        (SELECT bit_or(user_role_bit(ur.role)) FROM user_roles ur WHERE ur.user_id = target_user), 0)
+    WHERE id = target_user;
+
+    IF TG_OP = 'UPDATE' AND OLD.user_id <> NEW.user_id THEN
+        UPDATE app_user
+        SET roles_mask = COALESCE(
+            (SELECT bit_or(user_role_bit(ur.role)) FROM user_roles ur WHERE ur.user_id = OLD.user_id), 0)
+        WHERE id = OLD.user_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_user_roles_mask ON user_roles;
+CREATE TRIGGER trg_user_roles_mask
+AFTER INSERT OR UPDATE OR DELETE ON user_roles
+FOR EACH ROW EXECUTE FUNCTION refresh_user_roles_mask();
@@ -0,0 +1,12 @@
+-- Objects whose rows are gone or DELETED, waiting for the background sweeper to
+-- remove them from MinIO in batches
+CREATE TABLE IF NOT EXISTS object_tombstone (
+    id BIGSERIAL PRIMARY KEY,
+    key VARCHAR(512) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1024),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_object_tombstone_due ON object_tombstone(next_attempt_at, id);
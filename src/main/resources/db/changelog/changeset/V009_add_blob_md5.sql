@@ -0,0 +1,4 @@
+-- MD5 of the blob content, computed in the same pass as sha256 and compared with the
+-- object store's ETag; NULL for blobs stored before it was recorded
+ALTER TABLE content_blob
+ADD COLUMN IF NOT EXISTS md5 VARCHAR(32);
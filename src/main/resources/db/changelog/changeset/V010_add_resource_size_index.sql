@@ -0,0 +1,4 @@
+-- The storage reconciler sums each project's active and pending resource sizes;
+-- carrying size in the index lets those sums run as index-only scans
+CREATE INDEX IF NOT EXISTS idx_resource_project_status_size
+    ON resource(project_id, status) INCLUDE (size);
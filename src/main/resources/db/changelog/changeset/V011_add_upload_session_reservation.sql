@@ -0,0 +1,7 @@
+-- Quota an active upload session holds for its declared size; NULL for sessions
+-- created before sessions reserved quota, which reserve it when they are committed
+ALTER TABLE upload_session ADD COLUMN IF NOT EXISTS reserved_size BIGINT;
+
+-- The storage reconciler adds each project's active session reservations to its resource sizes
+CREATE INDEX IF NOT EXISTS idx_upload_session_project_status
+    ON upload_session(project_id, status) INCLUDE (reserved_size);
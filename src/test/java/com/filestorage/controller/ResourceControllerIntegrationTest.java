@@ -2,12 +2,14 @@ package com.filestorage.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filestorage.config.minio.MultipartMinioClient;
 import com.filestorage.model.Project;
 import com.filestorage.model.Resource;
 import com.filestorage.model.ResourceStatus;
 import com.filestorage.model.ResourceType;
 import com.filestorage.model.User;
 import com.filestorage.model.UserRole;
+import com.filestorage.repository.ObjectTombstoneRepository;
 import com.filestorage.repository.ProjectRepository;
 import com.filestorage.repository.ResourceRepository;
 import com.filestorage.repository.UserRepository;
@@ -17,14 +19,21 @@ import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import okhttp3.Headers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -36,7 +45,9 @@ import java.io.InputStream;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.ZipInputStream;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -46,13 +57,18 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -67,6 +83,9 @@ class ResourceControllerIntegrationTest {
     
     @MockBean
     private MinioClient minioClient;
+
+    @MockBean
+    private MultipartMinioClient multipartMinioClient;
     
     @Autowired
     private ResourceRepository resourceRepository;
@@ -76,6 +95,15 @@ class ResourceControllerIntegrationTest {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private ObjectTombstoneRepository objectTombstoneRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
     
     private Project testProject;
     private User testUser;
@@ -158,6 +186,24 @@ class ResourceControllerIntegrationTest {
         verify(minioClient).putObject(any(PutObjectArgs.class));
     }
     
+    @Test
+    @DisplayName("Should upload raw request body via streaming endpoint")
+    void shouldUploadStreamSuccessfully() throws Exception {
+        // When & Then
+        mockMvc.perform(
+                post("/api/v1/projects/{projectId}/resources/stream", testProject.getId())
+                        .param("fileName", "streamed.txt")
+                        .param("allowedRoles", "DEVELOPER")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("Streamed content for integration test".getBytes())
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("streamed.txt"));
+
+        verify(minioClient).putObject(any(PutObjectArgs.class));
+    }
+
     @Test
     @DisplayName("Should return 413 when file too large")
     void shouldReturn413WhenFileTooLarge() throws Exception {
@@ -205,6 +251,98 @@ class ResourceControllerIntegrationTest {
         verify(minioClient).getObject(any(GetObjectArgs.class));
     }
     
+    @Test
+    @DisplayName("Should serve a single byte range as partial content")
+    void shouldServeSingleRange() throws Exception {
+        // Given
+        GetObjectResponse mockResponse = mock(GetObjectResponse.class);
+        doAnswer(invocation -> mockResponse).when(minioClient).getObject(any(GetObjectArgs.class));
+        
+        // When & Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/{resourceId}/download",
+                        testProject.getId(), testResource.getId())
+                        .header("x-user-id", testUser.getId())
+                        .header(HttpHeaders.RANGE, "bytes=100-199")
+        )
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/1024"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "100"));
+        
+        ArgumentCaptor<GetObjectArgs> argsCaptor = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(minioClient).getObject(argsCaptor.capture());
+        assertEquals(100L, argsCaptor.getValue().offset());
+        assertEquals(100L, argsCaptor.getValue().length());
+    }
+    
+    @Test
+    @DisplayName("Should reject a range beyond the end of the file")
+    void shouldRejectUnsatisfiableRange() throws Exception {
+        // When & Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/{resourceId}/download",
+                        testProject.getId(), testResource.getId())
+                        .header("x-user-id", testUser.getId())
+                        .header(HttpHeaders.RANGE, "bytes=2048-")
+        )
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1024"));
+        
+        verify(minioClient, never()).getObject(any(GetObjectArgs.class));
+    }
+
+    @Test
+    @DisplayName("Should merge overlapping ranges that add up to more than the file")
+    void shouldCoalesceOverlappingRanges() throws Exception {
+        // Given
+        GetObjectResponse mockResponse = mock(GetObjectResponse.class);
+        doAnswer(invocation -> mockResponse).when(minioClient).getObject(any(GetObjectArgs.class));
+
+        // When & Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/{resourceId}/download",
+                        testProject.getId(), testResource.getId())
+                        .header("x-user-id", testUser.getId())
+                        .header(HttpHeaders.RANGE, "bytes=0-799,200-1023")
+        )
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-1023/1024"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "1024"));
+
+        ArgumentCaptor<GetObjectArgs> argsCaptor = ArgumentCaptor.forClass(GetObjectArgs.class);
+        verify(minioClient).getObject(argsCaptor.capture());
+        assertEquals(0L, argsCaptor.getValue().offset());
+        assertEquals(1024L, argsCaptor.getValue().length());
+    }
+
+    @Test
+    @DisplayName("Should answer a matching If-None-Match with 304 without reading the object")
+    void shouldReturnNotModifiedForMatchingEtag() throws Exception {
+        // Given
+        GetObjectResponse mockResponse = mock(GetObjectResponse.class);
+        doAnswer(invocation -> mockResponse).when(minioClient).getObject(any(GetObjectArgs.class));
+        
+        String etag = mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/{resourceId}/download",
+                        testProject.getId(), testResource.getId())
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        // When & Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/{resourceId}/download",
+                        testProject.getId(), testResource.getId())
+                        .header("x-user-id", testUser.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        )
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        
+        verify(minioClient, times(1)).getObject(any(GetObjectArgs.class));
+    }
+    
     @Test
     @DisplayName("Should delete file successfully")
     void shouldDeleteFileSuccessfully() throws Exception {
@@ -230,9 +368,129 @@ class ResourceControllerIntegrationTest {
         assertNull(deletedResource.get().getKey());
         assertEquals(BigInteger.ZERO, deletedResource.get().getSize());
         
-        verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+        // The object is queued for the background sweeper instead of removed inline
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+        assertTrue(objectTombstoneRepository.findAll().stream()
+                .anyMatch(tombstone -> tombstone.getKey().equals("project-1/test-key.pdf")));
     }
     
+    @Test
+    @DisplayName("Should bulk delete resources by id and skip unknown ids")
+    void shouldBulkDeleteByIds() throws Exception {
+        // Given
+        String body = objectMapper.writeValueAsString(
+                Map.of("resourceIds", List.of(testResource.getId(), 999999L)));
+
+        // When & Then
+        mockMvc.perform(
+                post("/api/v1/projects/{projectId}/resources/bulk-delete", testProject.getId())
+                        .header("x-user-id", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.skipped[0]").value(999999))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        entityManager.clear();
+        Resource deleted = resourceRepository.findById(testResource.getId()).orElseThrow();
+        assertEquals(ResourceStatus.DELETED, deleted.getStatus());
+        assertNull(deleted.getKey());
+        assertTrue(objectTombstoneRepository.findAll().stream()
+                .anyMatch(tombstone -> tombstone.getKey().equals("project-1/test-key.pdf")));
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    @DisplayName("Should bulk delete resources matching a filter")
+    void shouldBulkDeleteByFilter() throws Exception {
+        // Given
+        Resource image = resourceRepository.save(Resource.builder()
+                .name("photo.png")
+                .key("project-1/photo.png")
+                .size(BigInteger.valueOf(2048L))
+                .contentType("image/png")
+                .type(ResourceType.IMAGE)
+                .status(ResourceStatus.ACTIVE)
+                .project(testProject)
+                .createdBy(testUser)
+                .updatedBy(testUser)
+                .allowedRoles(new ArrayList<>(List.of(UserRole.DEVELOPER)))
+                .build());
+        String body = objectMapper.writeValueAsString(Map.of("type", "PDF", "createdBy", testUser.getId()));
+
+        // When & Then
+        mockMvc.perform(
+                post("/api/v1/projects/{projectId}/resources/bulk-delete", testProject.getId())
+                        .header("x-user-id", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1));
+
+        entityManager.clear();
+        assertEquals(ResourceStatus.DELETED,
+                resourceRepository.findById(testResource.getId()).orElseThrow().getStatus());
+        assertEquals(ResourceStatus.ACTIVE, resourceRepository.findById(image.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should stream selected resources as a ZIP archive")
+    void shouldDownloadArchive() throws Exception {
+        // Given
+        doAnswer(invocation -> new GetObjectResponse(Headers.of(), "test-bucket", null, "project-1/test-key.pdf",
+                new ByteArrayInputStream("file content".getBytes())))
+                .when(minioClient).getObject(any(GetObjectArgs.class));
+
+        // When
+        MvcResult result = mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/archive", testProject.getId())
+                        .param("ids", testResource.getId().toString())
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        MvcResult archive = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/zip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        containsString("project-" + testProject.getId() + "-resources.zip")))
+                .andReturn();
+
+        try (ZipInputStream zip = new ZipInputStream(
+                new ByteArrayInputStream(archive.getResponse().getContentAsByteArray()))) {
+            assertEquals("test-file.pdf", zip.getNextEntry().getName());
+            assertEquals("file content", new String(zip.readAllBytes()));
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an archive of a resource the user cannot read")
+    void shouldRejectArchiveOfUnreadableResource() throws Exception {
+        // Given
+        User tester = userRepository.save(User.builder()
+                .username("tester")
+                .nickname("Tester")
+                .roles(new ArrayList<>(List.of(UserRole.TESTER)))
+                .build());
+
+        // When & Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/archive", testProject.getId())
+                        .param("ids", testResource.getId().toString())
+                        .header("x-user-id", tester.getId())
+        )
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.errorCode").value("ACCESS_DENIED"));
+
+        verify(minioClient, never()).getObject(any(GetObjectArgs.class));
+    }
+
     @Test
     @DisplayName("Should return 403 when user lacks permission")
     void shouldReturn403WhenUserLacksPermission() throws Exception {
@@ -273,6 +531,120 @@ class ResourceControllerIntegrationTest {
                 .andExpect(jsonPath("$.pageable.pageSize").value(10));
     }
     
+    @Test
+    @DisplayName("Should list a page with a fixed number of statements regardless of its rows")
+    void shouldListPageWithoutPerRowQueries() throws Exception {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            User author = userRepository.save(User.builder()
+                    .username("author-" + i)
+                    .nickname("Author " + i)
+                    .roles(new ArrayList<>(List.of(UserRole.DEVELOPER)))
+                    .build());
+            resourceRepository.save(Resource.builder()
+                    .name("file-" + i + ".pdf")
+                    .key("project-1/file-" + i + ".pdf")
+                    .size(BigInteger.valueOf(10L))
+                    .contentType("application/pdf")
+                    .type(ResourceType.PDF)
+                    .status(ResourceStatus.ACTIVE)
+                    .project(testProject)
+                    .createdBy(author)
+                    .updatedBy(author)
+                    .allowedRoles(new ArrayList<>(List.of(UserRole.DEVELOPER)))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources", testProject.getId())
+                        .param("page", "0")
+                        .param("size", "5")
+                        .param("sort", "id,desc")
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(5))
+                .andExpect(jsonPath("$.content[0].createdBy").value("Author 4"));
+
+        // Then: user and project lookups, the page itself and its count
+        assertEquals(4, statistics.getPrepareStatementCount());
+
+        // Once cached, the user and project lookups cost nothing
+        statistics.clear();
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources", testProject.getId())
+                        .param("page", "0")
+                        .param("size", "5")
+                        .param("sort", "id,desc")
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isOk());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should walk project files page by page with a cursor")
+    void shouldWalkProjectFilesWithCursor() throws Exception {
+        // Given
+        for (String name : List.of("second.pdf", "third.pdf")) {
+            resourceRepository.save(Resource.builder()
+                    .name(name)
+                    .key("project-1/" + name)
+                    .size(BigInteger.valueOf(10L))
+                    .contentType("application/pdf")
+                    .type(ResourceType.PDF)
+                    .status(ResourceStatus.ACTIVE)
+                    .project(testProject)
+                    .createdBy(testUser)
+                    .updatedBy(testUser)
+                    .allowedRoles(new ArrayList<>())
+                    .build());
+        }
+
+        // When
+        MvcResult firstPage = mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/cursor", testProject.getId())
+                        .param("size", "2")
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString())
+                .get("nextCursor").asText();
+
+        // Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/cursor", testProject.getId())
+                        .param("size", "2")
+                        .param("cursor", cursor)
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("test-file.pdf"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void shouldRejectMalformedCursor() throws Exception {
+        // When & Then
+        mockMvc.perform(
+                get("/api/v1/projects/{projectId}/resources/cursor", testProject.getId())
+                        .param("cursor", "not-a-cursor")
+                        .header("x-user-id", testUser.getId())
+        )
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Should upload multiple files successfully")
     void shouldUploadMultipleFilesSuccessfully() throws Exception {
@@ -323,6 +695,56 @@ class ResourceControllerIntegrationTest {
         verify(minioClient).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
     }
     
+    @Test
+    @DisplayName("Should generate presigned URLs for a batch of resources")
+    void shouldGeneratePresignedUrlBatch() throws Exception {
+        // Given
+        String expectedUrl = "https://minio.example.com/bucket/file?X-Amz-Signature=abc123";
+        doAnswer(invocation -> expectedUrl)
+                .when(minioClient).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+        String body = objectMapper.writeValueAsString(
+                Map.of("resourceIds", List.of(999999L, testResource.getId())));
+
+        // When & Then
+        mockMvc.perform(
+                post("/api/v1/projects/{projectId}/resources/urls", testProject.getId())
+                        .header("x-user-id", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].resourceId").value(999999))
+                .andExpect(jsonPath("$[0].url").doesNotExist())
+                .andExpect(jsonPath("$[0].error").value(containsString("not found")))
+                .andExpect(jsonPath("$[1].resourceId").value(testResource.getId()))
+                .andExpect(jsonPath("$[1].url").value(expectedUrl))
+                .andExpect(jsonPath("$[1].expiresIn").value(3600));
+
+        verify(minioClient).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a presigned URL batch over the limit")
+    void shouldRejectOversizedPresignedUrlBatch() throws Exception {
+        // Given
+        List<Long> resourceIds = new ArrayList<>();
+        for (long id = 1; id <= 201; id++) {
+            resourceIds.add(id);
+        }
+        String body = objectMapper.writeValueAsString(Map.of("resourceIds", resourceIds));
+
+        // When & Then
+        mockMvc.perform(
+                post("/api/v1/projects/{projectId}/resources/urls", testProject.getId())
+                        .header("x-user-id", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body)
+        )
+                .andExpect(status().isBadRequest());
+
+        verify(minioClient, never()).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+    }
+
     @Test
     @DisplayName("Should return 404 when resource not found")
     void shouldReturn404WhenResourceNotFound() throws Exception {
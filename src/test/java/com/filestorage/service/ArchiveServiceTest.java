@@ -0,0 +1,177 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ArchiveProperties;
+import com.filestorage.dto.UserSnapshot;
+import com.filestorage.model.ResourceStatus;
+import com.filestorage.model.ResourceType;
+import com.filestorage.model.UserRole;
+import com.filestorage.repository.ResourceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.file.AccessDeniedException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ArchiveService Unit Tests")
+class ArchiveServiceTest {
+
+    private static final UserSnapshot DEVELOPER = new UserSnapshot(1L, "Developer", UserRole.DEVELOPER.bit());
+
+    @Mock
+    private ResourceRepository resourceRepository;
+
+    @Mock
+    private MetadataLookupService metadataLookupService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private ExecutorService prefetchExecutor;
+    private ArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setMaxResources(10);
+        properties.setPrefetch(1);
+
+        prefetchExecutor = Executors.newFixedThreadPool(2);
+        archiveService = new ArchiveService(resourceRepository, metadataLookupService, fileStorageService,
+                prefetchExecutor, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should stream every object as an entry and leave compressed types uncompressed")
+    void shouldStreamArchive() throws Exception {
+        // Given
+        byte[] document = new byte[10_000];
+        byte[] photo = new byte[10_000];
+        when(metadataLookupService.getUser(1L)).thenReturn(DEVELOPER);
+        when(resourceRepository.findArchiveCandidates(Set.of(1L, 2L, 3L), 1L)).thenReturn(List.of(
+                new TestArchiveCandidate(1L, "report.pdf", "project-1/a", ResourceType.PDF, UserRole.DEVELOPER.bit()),
+                new TestArchiveCandidate(2L, "report.pdf", "project-1/b", ResourceType.IMAGE, UserRole.DEVELOPER.bit()),
+                new TestArchiveCandidate(3L, "../notes", "project-1/c", ResourceType.TEXT, UserRole.DEVELOPER.bit())));
+        when(fileStorageService.openWholeObject("project-1/a", 100L, ResourceType.PDF)).thenReturn(new ByteArrayInputStream(document));
+        when(fileStorageService.openWholeObject("project-1/b", 100L, ResourceType.IMAGE)).thenReturn(new ByteArrayInputStream(photo));
+        when(fileStorageService.openWholeObject("project-1/c", 100L, ResourceType.TEXT))
+                .thenReturn(new ByteArrayInputStream("notes".getBytes()));
+
+        // When
+        List<ArchiveService.ArchiveEntry> entries = archiveService.prepareArchive(
+                1L, 1L, List.of(1L, 2L, 3L), null, null, null);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        archiveService.writeArchive(entries, archive);
+
+        // Then
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry first = zip.getNextEntry();
+            assertEquals("report.pdf", first.getName());
+            assertArrayEquals(document, zip.readAllBytes());
+            assertTrue(first.getCompressedSize() < 1_000);
+
+            ZipEntry second = zip.getNextEntry();
+            assertEquals("report (1).pdf", second.getName());
+            assertArrayEquals(photo, zip.readAllBytes());
+            assertTrue(second.getCompressedSize() >= photo.length);
+
+            ZipEntry third = zip.getNextEntry();
+            assertEquals(".._notes", third.getName());
+            assertArrayEquals("notes".getBytes(), zip.readAllBytes());
+
+            assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse the whole archive when one resource is not readable")
+    void shouldRejectUnreadableResource() {
+        // Given
+        when(metadataLookupService.getUser(1L)).thenReturn(DEVELOPER);
+        when(resourceRepository.findArchiveCandidates(Set.of(1L, 2L), 1L)).thenReturn(List.of(
+                new TestArchiveCandidate(1L, "a.pdf", "project-1/a", ResourceType.PDF, UserRole.DEVELOPER.bit()),
+                new TestArchiveCandidate(2L, "b.pdf", "project-1/b", ResourceType.PDF, UserRole.OWNER.bit())));
+
+        // When & Then
+        assertThrows(AccessDeniedException.class, () ->
+                archiveService.prepareArchive(1L, 1L, List.of(1L, 2L), null, null, null));
+        verify(fileStorageService, never()).openWholeObject(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should require either ids or a filter")
+    void shouldRequireIdsOrFilter() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () ->
+                archiveService.prepareArchive(1L, 1L, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                archiveService.prepareArchive(1L, 1L, List.of(1L), ResourceType.PDF, null, null));
+    }
+
+    private record TestArchiveCandidate(Long id, String name, String objectKey, ResourceType resourceType,
+                                        Integer allowedRolesMask) implements ResourceRepository.ArchiveCandidate {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getObjectKey() {
+            return objectKey;
+        }
+
+        @Override
+        public BigInteger getObjectSize() {
+            return BigInteger.valueOf(100);
+        }
+
+        @Override
+        public ResourceType getResourceType() {
+            return resourceType;
+        }
+
+        @Override
+        public ResourceStatus getStatus() {
+            return ResourceStatus.ACTIVE;
+        }
+
+        @Override
+        public Integer getAllowedRolesMask() {
+            return allowedRolesMask;
+        }
+    }
+}
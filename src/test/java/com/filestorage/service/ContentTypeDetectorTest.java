@@ -0,0 +1,95 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ContentDetectionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tika.Tika;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ContentTypeDetector Unit Tests")
+class ContentTypeDetectorTest {
+
+    @Mock
+    private Tika tika;
+
+    private ContentTypeDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        ContentDetectionProperties properties = new ContentDetectionProperties();
+        properties.setHeadSize(16);
+        detector = new ContentTypeDetector(tika, properties, new StorageMetrics(new SimpleMeterRegistry()),
+                "application/octet-stream");
+    }
+
+    @Test
+    @DisplayName("Should detect from a bounded head and hand the whole content back")
+    void shouldDetectFromHead() throws IOException {
+        // Given
+        byte[] content = new byte[100];
+        new Random(7).nextBytes(content);
+        InputStream stream = new ByteArrayInputStream(content);
+        when(tika.detect(any(InputStream.class))).thenAnswer(invocation -> {
+            assertEquals(16, invocation.<InputStream>getArgument(0).readAllBytes().length);
+            return "application/pdf";
+        });
+
+        // When
+        ContentTypeDetector.Detection detection = detector.detect(stream, "report.pdf", null);
+
+        // Then
+        assertEquals("application/pdf", detection.contentType());
+        assertArrayEquals(Arrays.copyOf(content, 16), detection.head());
+        assertArrayEquals(content, detection.prepend(stream).readAllBytes());
+    }
+
+    @Test
+    @DisplayName("Should trust an allowlisted client type that matches the extension without reading")
+    void shouldTrustMatchingClientType() throws IOException {
+        // Given
+        InputStream stream = new ByteArrayInputStream(new byte[100]);
+        when(tika.detect("clip.mp4")).thenReturn("video/mp4");
+
+        // When
+        ContentTypeDetector.Detection detection = detector.detect(stream, "clip.mp4", "video/MP4; codecs=avc1");
+
+        // Then
+        assertEquals("video/mp4", detection.contentType());
+        assertEquals(0, detection.head().length);
+        assertEquals(100, stream.available());
+        verify(tika, never()).detect(any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Should detect when the client type does not match the extension")
+    void shouldDetectMismatchedClientType() throws IOException {
+        // Given
+        when(tika.detect("invoice.png")).thenReturn("image/png");
+        when(tika.detect(any(InputStream.class))).thenReturn("text/html");
+
+        // When
+        ContentTypeDetector.Detection detection = detector.detect(
+                new ByteArrayInputStream("<html></html>".getBytes()), "invoice.png", "image/jpeg");
+
+        // Then
+        assertEquals("text/html", detection.contentType());
+    }
+}
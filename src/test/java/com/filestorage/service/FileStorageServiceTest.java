@@ -1,59 +1,89 @@
 package com.filestorage.service;
 
+import com.filestorage.config.ContentDetectionProperties;
+import com.filestorage.dto.BulkDeleteRequest;
+import com.filestorage.dto.BulkDeleteResponse;
 import com.filestorage.dto.FileDownloadResponse;
+import com.filestorage.dto.PresignedUrlResponse;
+import com.filestorage.dto.ResourceResponse;
+import com.filestorage.dto.ResourceUploadStatus;
+import com.filestorage.dto.UserSnapshot;
 import com.filestorage.exception.EntityNotFoundException;
 import com.filestorage.exception.ResourceNotFoundException;
 import com.filestorage.exception.StorageLimitExceededException;
+import com.filestorage.model.ContentBlob;
 import com.filestorage.model.Project;
 import com.filestorage.model.Resource;
 import com.filestorage.model.ResourceStatus;
 import com.filestorage.model.ResourceType;
 import com.filestorage.model.User;
 import com.filestorage.model.UserRole;
+import com.filestorage.repository.ContentBlobRepository;
 import com.filestorage.repository.ProjectRepository;
 import com.filestorage.repository.ResourceRepository;
 import com.filestorage.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.minio.GetObjectArgs;
 import io.minio.GetObjectResponse;
 import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigInteger;
 import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -74,9 +104,35 @@ class FileStorageServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ContentBlobRepository contentBlobRepository;
+
     @Mock
     private org.apache.tika.Tika tika;
 
+    @Mock
+    private ParallelMultipartUploader multipartUploader;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LocalObjectCache objectCache;
+
+    @Mock
+    private MetadataLookupService metadataLookupService;
+
+    @Mock
+    private ObjectDeletionQueue objectDeletionQueue;
+
+    @Spy
+    private PresignedUrlCache presignedUrlCache = new PresignedUrlCache(0, 100, new SimpleMeterRegistry());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private StorageMetrics storageMetrics = new StorageMetrics(meterRegistry);
+
     @InjectMocks
     private FileStorageService fileStorageService;
 
@@ -89,7 +145,12 @@ class FileStorageServiceTest {
     
     @BeforeEach
     void setUp() throws Exception {
-        ReflectionTestUtils.setField(fileStorageService, "bucketName", BUCKET_NAME);
+        MinioObjectStore objectStore = new MinioObjectStore(minioClient, multipartUploader);
+        ReflectionTestUtils.setField(objectStore, "bucketName", BUCKET_NAME);
+        ReflectionTestUtils.setField(objectStore, "streamPartSize", 10_485_760L);
+        ReflectionTestUtils.setField(fileStorageService, "objectStore", objectStore);
+        ReflectionTestUtils.setField(fileStorageService, "contentTypeDetector", new ContentTypeDetector(
+                tika, new ContentDetectionProperties(), storageMetrics, "application/octet-stream"));
         long maxFileSize = 500_000_000L; // 500 MB
         ReflectionTestUtils.setField(fileStorageService, "maxFileSize", maxFileSize);
         ReflectionTestUtils.setField(fileStorageService, "maxFileSizeMb", maxFileSize / 1_000_000L);
@@ -101,7 +162,8 @@ class FileStorageServiceTest {
         ReflectionTestUtils.setField(fileStorageService, "blockedExtensions", blockedExtensions);
         ReflectionTestUtils.setField(fileStorageService, "presignedUrlExpirySeconds", 3600); // 1 hour
         ReflectionTestUtils.setField(fileStorageService, "uuidSubstringLength", 8);
-        ReflectionTestUtils.setField(fileStorageService, "defaultContentType", "application/octet-stream");
+        ReflectionTestUtils.setField(fileStorageService, "pendingTimeoutMinutes", 1440L);
+        ReflectionTestUtils.setField(fileStorageService, "bulkDeleteMaxResources", 1000);
         
         testProject = Project.builder()
                 .id(1L)
@@ -128,6 +190,7 @@ class FileStorageServiceTest {
                 .project(testProject)
                 .createdBy(testUser)
                 .allowedRoles(List.of(UserRole.DEVELOPER))
+                .allowedRolesMask(UserRole.DEVELOPER.bit())
                 .build();
         
         testFile = new MockMultipartFile(
@@ -137,7 +200,11 @@ class FileStorageServiceTest {
                 "Test PDF content".getBytes()
         );
 
-        when(tika.detect(any(InputStream.class))).thenReturn("application/pdf");
+        lenient().when(tika.detect(any(InputStream.class))).thenReturn("application/pdf");
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(resourceRepository.transitionStatus(any(), eq(ResourceStatus.PENDING), any()))
+                .thenReturn(1);
     }
     
     @Nested
@@ -148,16 +215,16 @@ class FileStorageServiceTest {
         @DisplayName("Should successfully upload file")
         void shouldUploadFileSuccessfully() throws Exception {
             // Given
-            when(projectRepository.findByIdWithLock(1L))
+            when(projectRepository.findById(1L))
                     .thenReturn(Optional.of(testProject));
             when(userRepository.findById(1L))
                     .thenReturn(Optional.of(testUser));
             when(resourceRepository.save(any(Resource.class)))
                     .thenAnswer(invocation -> invocation.getArgument(0));
-            when(resourceRepository.calculateProjectStorageSize(1L))
-                    .thenReturn(testFile.getSize());
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
             doAnswer(invocation -> null).when(minioClient).putObject(any(PutObjectArgs.class));
-            when(projectRepository.updateStorageSize(anyLong(), any(BigInteger.class))).thenReturn(1);
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
             
             // When
             Resource result = fileStorageService.uploadFile(
@@ -173,11 +240,35 @@ class FileStorageServiceTest {
             // Verify MinIO upload
             verify(minioClient).putObject(any(PutObjectArgs.class));
             
-            // Verify database operations
-            verify(resourceRepository).save(any(Resource.class));
-            verify(projectRepository).updateStorageSize(eq(1L), any(BigInteger.class));
+            // Verify database operations: PENDING insert, then activation
+            verify(resourceRepository, times(2)).save(any(Resource.class));
+            verify(projectRepository).reserveStorage(1L, BigInteger.valueOf(testFile.getSize()));
         }
         
+        @Test
+        @DisplayName("Should not revive an upload whose pending row expired during the transfer")
+        void shouldCompensateWhenPendingRowExpired() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> null).when(minioClient).putObject(any(PutObjectArgs.class));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            when(resourceRepository.transitionStatus(any(), eq(ResourceStatus.PENDING), any()))
+                    .thenReturn(0);
+
+            // When & Then
+            assertThrows(IllegalStateException.class, () ->
+                    fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER)));
+            verify(contentBlobRepository, never()).save(any(ContentBlob.class));
+            verify(projectRepository, never()).releaseStorage(anyLong(), any());
+            verify(resourceRepository, never()).deleteById(any());
+            verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+        }
+
         @Test
         @DisplayName("Should fail when file is empty")
         void shouldFailWhenFileIsEmpty() {
@@ -227,7 +318,7 @@ class FileStorageServiceTest {
                     "file", "test.pdf", "application/pdf", new byte[1024 * 1024] // 1MB
             );
             
-            when(projectRepository.findByIdWithLock(1L))
+            when(projectRepository.findById(1L))
                     .thenReturn(Optional.of(testProject));
             
             // When & Then
@@ -236,6 +327,51 @@ class FileStorageServiceTest {
             );
         }
         
+        @Test
+        @DisplayName("Should not transfer anything when the quota reservation fails")
+        void shouldNotTransferWhenReservationFails() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(testFile.getSize()))).thenReturn(0);
+
+            // When & Then
+            assertThrows(StorageLimitExceededException.class, () ->
+                    fileStorageService.uploadFile(testFile, 1L, 1L, null)
+            );
+            verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+            verify(resourceRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should release the reservation and drop the pending row when the transfer fails")
+        void shouldCompensateFailedTransfer() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(testFile.getSize()))).thenReturn(1);
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doThrow(new java.io.IOException("connection reset"))
+                    .when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When & Then
+            assertThrows(RuntimeException.class, () ->
+                    fileStorageService.uploadFile(testFile, 1L, 1L, null)
+            );
+
+            ArgumentCaptor<Resource> resourceCaptor = ArgumentCaptor.forClass(Resource.class);
+            verify(resourceRepository).save(resourceCaptor.capture());
+            assertEquals(ResourceStatus.PENDING, resourceCaptor.getValue().getStatus());
+            verify(resourceRepository).deleteById(any());
+            verify(projectRepository).releaseStorage(1L, BigInteger.valueOf(testFile.getSize()));
+            verify(minioClient, never()).removeObject(any());
+        }
+
         @Test
         @DisplayName("Should reject blocked file extensions")
         void shouldRejectBlockedExtensions() {
@@ -256,23 +392,23 @@ class FileStorageServiceTest {
         @DisplayName("Should use user roles when allowedRoles is null")
         void shouldUseUserRolesWhenAllowedRolesNull() throws Exception {
             // Given
-            when(projectRepository.findByIdWithLock(1L))
+            when(projectRepository.findById(1L))
                     .thenReturn(Optional.of(testProject));
             when(userRepository.findById(1L))
                     .thenReturn(Optional.of(testUser));
             when(resourceRepository.save(any(Resource.class)))
                     .thenAnswer(invocation -> invocation.getArgument(0));
-            when(resourceRepository.calculateProjectStorageSize(1L))
-                    .thenReturn(testFile.getSize());
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
             doAnswer(invocation -> null).when(minioClient).putObject(any(PutObjectArgs.class));
-            when(projectRepository.updateStorageSize(anyLong(), any(BigInteger.class))).thenReturn(1);
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
             
             // When
             Resource result = fileStorageService.uploadFile(testFile, 1L, 1L, null);
             
             // Then
             ArgumentCaptor<Resource> resourceCaptor = ArgumentCaptor.forClass(Resource.class);
-            verify(resourceRepository).save(resourceCaptor.capture());
+            verify(resourceRepository, times(2)).save(resourceCaptor.capture());
             
             Resource savedResource = resourceCaptor.getValue();
             assertEquals(testUser.getRoles(), savedResource.getAllowedRoles());
@@ -282,7 +418,7 @@ class FileStorageServiceTest {
         @DisplayName("Should fail when project not found")
         void shouldFailWhenProjectNotFound() {
             // Given
-            when(projectRepository.findByIdWithLock(1L))
+            when(projectRepository.findById(1L))
                     .thenReturn(Optional.empty());
             
             // When & Then
@@ -295,7 +431,7 @@ class FileStorageServiceTest {
         @DisplayName("Should fail when user not found")
         void shouldFailWhenUserNotFound() {
             // Given
-            when(projectRepository.findByIdWithLock(1L))
+            when(projectRepository.findById(1L))
                     .thenReturn(Optional.of(testProject));
             when(userRepository.findById(1L))
                     .thenReturn(Optional.empty());
@@ -307,6 +443,486 @@ class FileStorageServiceTest {
         }
     }
     
+    @Nested
+    @DisplayName("Stream Upload Tests")
+    class StreamUploadTests {
+
+        @Test
+        @DisplayName("Should stream request body to MinIO")
+        void shouldStreamBodyToMinio() throws Exception {
+            // Given
+            byte[] content = "Streamed PDF content".getBytes();
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(content.length))).thenReturn(1);
+            doAnswer(invocation -> {
+                PutObjectArgs args = invocation.getArgument(0);
+                args.stream().readAllBytes();
+                return null;
+            }).when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When
+            Resource result = fileStorageService.uploadStream(
+                    new ByteArrayInputStream(content), "streamed.pdf", "application/pdf", -1L,
+                    1L, 1L, Set.of(UserRole.DEVELOPER)
+            );
+
+            // Then
+            assertEquals("streamed.pdf", result.getName());
+            assertEquals(BigInteger.valueOf(content.length), result.getSize());
+            assertEquals(ResourceStatus.ACTIVE, result.getStatus());
+            verify(minioClient).putObject(any(PutObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should hand large streams to the parallel multipart uploader")
+        void shouldUseMultipartUploaderForLargeStreams() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(multipartUploader.shouldUse(100_000_000L)).thenReturn(true);
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+
+            // When
+            fileStorageService.uploadStream(
+                    new ByteArrayInputStream(new byte[16]), "backup.zip", "application/zip", 100_000_000L,
+                    1L, 1L, null);
+
+            // Then
+            verify(multipartUploader).upload(eq(BUCKET_NAME), any(String.class), any(InputStream.class), any());
+            verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should reject declared length above limit before touching storage")
+        void shouldRejectDeclaredLengthAboveLimit() {
+            // When & Then
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                    fileStorageService.uploadStream(
+                            new ByteArrayInputStream(new byte[0]), "large.zip", null, 500_000_001L,
+                            1L, 1L, null)
+            );
+
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+            verifyNoInteractions(minioClient);
+        }
+
+        @Test
+        @DisplayName("Should abort chunked stream that grows past the limit")
+        void shouldAbortStreamPastLimit() throws Exception {
+            // Given
+            ReflectionTestUtils.setField(fileStorageService, "maxFileSize", 16L);
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> {
+                PutObjectArgs args = invocation.getArgument(0);
+                args.stream().readAllBytes();
+                return null;
+            }).when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When & Then
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                    fileStorageService.uploadStream(
+                            new ByteArrayInputStream(new byte[64]), "data.bin", null, -1L,
+                            1L, 1L, null)
+            );
+
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+            // Only the PENDING row was written, and it is dropped again
+            verify(resourceRepository).save(any(Resource.class));
+            verify(resourceRepository).deleteById(any());
+            verify(projectRepository, never()).reserveStorage(anyLong(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Integrity Tests")
+    class IntegrityTests {
+
+        private static final String TEST_FILE_MD5 = "99e0c74fa590001a403d8c50d8a671dd";
+        private static final String TEST_FILE_SHA256 =
+                "12cde1fe03616c66631b1047ff48f8d051b2c97da614face73f2cc4525dda4fb";
+
+        @BeforeEach
+        void enableEtagVerification() {
+            ReflectionTestUtils.setField(fileStorageService, "verifyEtag", true);
+        }
+
+        private void storeWithEtag(String etag) throws Exception {
+            ObjectWriteResponse response = mock(ObjectWriteResponse.class);
+            when(response.etag()).thenReturn(etag);
+            doAnswer(invocation -> {
+                PutObjectArgs args = invocation.getArgument(0);
+                args.stream().readAllBytes();
+                return response;
+            }).when(minioClient).putObject(any(PutObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should record SHA-256 and MD5 computed while the upload streams")
+        void shouldRecordChecksumsOfUpload() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            storeWithEtag(TEST_FILE_MD5);
+
+            // When
+            Resource result = fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER));
+
+            // Then
+            assertEquals(TEST_FILE_SHA256, result.getBlob().getSha256());
+            assertEquals(TEST_FILE_MD5, result.getBlob().getMd5());
+            assertEquals(ResourceStatus.ACTIVE, result.getStatus());
+        }
+
+        @Test
+        @DisplayName("Should drop an object whose ETag does not match the content sent")
+        void shouldRejectMismatchedEtag() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            storeWithEtag("\"00000000000000000000000000000000\"");
+
+            // When & Then
+            assertThrows(RuntimeException.class, () ->
+                    fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER)));
+
+            verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+            verify(resourceRepository).deleteById(any());
+            verify(contentBlobRepository, never()).save(any(ContentBlob.class));
+        }
+
+        @Test
+        @DisplayName("Should not compare multipart ETags with the content MD5")
+        void shouldSkipMultipartEtag() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            storeWithEtag("0123456789abcdef0123456789abcdef-3");
+
+            // When
+            Resource result = fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER));
+
+            // Then
+            assertEquals(ResourceStatus.ACTIVE, result.getStatus());
+            verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should reject a stream whose Content-MD5 does not match the body")
+        void shouldRejectStreamWithWrongContentMd5() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            storeWithEtag(null);
+
+            // When & Then
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                    fileStorageService.uploadStream(
+                            new ByteArrayInputStream("Streamed PDF content".getBytes()), "streamed.pdf",
+                            "application/pdf", -1L, 1L, 1L, null, "meDHT6WQABpAPYxQ2KZx3Q=="));
+
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+            verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+            verify(resourceRepository).deleteById(any());
+            verify(contentBlobRepository, never()).save(any(ContentBlob.class));
+        }
+
+        @Test
+        @DisplayName("Should accept a stream whose Content-MD5 matches the body")
+        void shouldAcceptStreamWithMatchingContentMd5() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            storeWithEtag(null);
+
+            // When
+            Resource result = fileStorageService.uploadStream(
+                    new ByteArrayInputStream("Streamed PDF content".getBytes()), "streamed.pdf",
+                    "application/pdf", -1L, 1L, 1L, null, "WHSbydax0kqJ4hxyw8GpTQ==");
+
+            // Then
+            assertEquals(ResourceStatus.ACTIVE, result.getStatus());
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed Content-MD5 before touching storage")
+        void shouldRejectMalformedContentMd5() {
+            // When & Then
+            assertThrows(IllegalArgumentException.class, () ->
+                    fileStorageService.uploadStream(
+                            new ByteArrayInputStream(new byte[16]), "data.bin", null, 16L,
+                            1L, 1L, null, "not-an-md5"));
+
+            verifyNoInteractions(minioClient);
+        }
+
+        @Test
+        @DisplayName("Should describe a download with the recorded digests")
+        void shouldDescribeDownloadDigest() throws Exception {
+            // Given
+            testResource.setBlob(ContentBlob.builder().id(5L).sha256(TEST_FILE_SHA256).md5(TEST_FILE_MD5).build());
+            when(resourceRepository.findByIdAndProjectId(1L, 1L))
+                    .thenReturn(Optional.of(testResource));
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
+
+            // When
+            FileDownloadResponse result = fileStorageService.describeDownload(1L, 1L, 1L);
+
+            // Then
+            assertEquals("sha-256=Es3h/gNhbGZjGxBH/0j40FGyyX2mFPrOc/LMRSXdpPs=,md5=meDHT6WQABpAPYxQ2KZx3Q==",
+                    result.getDigest());
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk Upload Tests")
+    class BulkUploadTests {
+
+        private ExecutorService executor;
+
+        @BeforeEach
+        void setUpExecutor() {
+            executor = Executors.newFixedThreadPool(2);
+            ReflectionTestUtils.setField(fileStorageService, "bulkUploadExecutor", executor);
+        }
+
+        @AfterEach
+        void tearDownExecutor() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        @DisplayName("Should reserve the batch once and return results in request order")
+        void shouldUploadBatchInOrder() throws Exception {
+            // Given
+            MockMultipartFile second = new MockMultipartFile(
+                    "files", "notes.pdf", "application/pdf", "More PDF content".getBytes());
+            MockMultipartFile empty = new MockMultipartFile(
+                    "files", "empty.txt", "text/plain", new byte[0]);
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(testFile.getSize() + second.getSize())))
+                    .thenReturn(1);
+            when(resourceRepository.saveAll(any()))
+                    .thenAnswer(invocation -> new ArrayList<>(invocation.<List<Resource>>getArgument(0)));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> null).when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When
+            List<ResourceResponse> results = fileStorageService.uploadFiles(
+                    List.of(testFile, empty, second), 1L, 1L, null);
+
+            // Then
+            assertEquals(3, results.size());
+            assertEquals("test-document.pdf", results.get(0).getName());
+            assertEquals(ResourceUploadStatus.SUCCESS, results.get(0).getStatus());
+            assertEquals(ResourceUploadStatus.FAILED, results.get(1).getStatus());
+            assertEquals("File cannot be empty", results.get(1).getError());
+            assertEquals("notes.pdf", results.get(2).getName());
+            assertEquals(ResourceUploadStatus.SUCCESS, results.get(2).getStatus());
+
+            verify(projectRepository).reserveStorage(anyLong(), any());
+            verify(resourceRepository, times(2)).saveAll(any());
+            verify(minioClient, times(2)).putObject(any(PutObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should reserve file by file when the whole batch does not fit")
+        void shouldFallBackToPerFileReservation() throws Exception {
+            // Given
+            MockMultipartFile second = new MockMultipartFile(
+                    "files", "notes.pdf", "application/pdf", "Some more PDF content".getBytes());
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(testFile.getSize() + second.getSize())))
+                    .thenReturn(0);
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(testFile.getSize())))
+                    .thenReturn(1);
+            when(projectRepository.reserveStorage(1L, BigInteger.valueOf(second.getSize())))
+                    .thenReturn(0);
+            when(resourceRepository.saveAll(any()))
+                    .thenAnswer(invocation -> new ArrayList<>(invocation.<List<Resource>>getArgument(0)));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> null).when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When
+            List<ResourceResponse> results = fileStorageService.uploadFiles(
+                    List.of(testFile, second), 1L, 1L, null);
+
+            // Then
+            assertEquals(ResourceUploadStatus.SUCCESS, results.get(0).getStatus());
+            assertEquals(ResourceUploadStatus.FAILED, results.get(1).getStatus());
+            assertTrue(results.get(1).getError().contains("Storage limit exceeded"));
+            verify(minioClient).putObject(any(PutObjectArgs.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Storage Key Tests")
+    class StorageKeyTests {
+
+        @Test
+        @DisplayName("Should sanitize file names exactly like the former replaceAll rules")
+        void shouldSanitizeFileName() {
+            // Given
+            String fileName = "My Document (2024).pdf";
+            String reference = fileName.replaceAll("[^a-zA-Z0-9.-]", "_")
+                    .replaceAll("_{2,}", "_")
+                    .toLowerCase();
+
+            // When
+            String result = fileStorageService.sanitizeFileName(fileName);
+
+            // Then
+            assertEquals("my_document_2024_.pdf", result);
+            assertEquals(reference, result);
+            assertEquals("_ber_report_.pdf", fileStorageService.sanitizeFileName("\u00fcber report\u00e9\u00e9.pdf"));
+        }
+
+        @Test
+        @DisplayName("Should return a clean file name unchanged")
+        void shouldKeepCleanFileName() {
+            // Given
+            String fileName = "report-2024.v2.pdf";
+
+            // When
+            String result = fileStorageService.sanitizeFileName(fileName);
+
+            // Then
+            assertSame(fileName, result);
+        }
+
+        @Test
+        @DisplayName("Should build keys as project, timestamp, random id and sanitized name")
+        void shouldGenerateStorageKey() {
+            // When
+            String first = fileStorageService.generateStorageKey(42L, "My Video.MP4");
+            String second = fileStorageService.generateStorageKey(42L, "My Video.MP4");
+
+            // Then
+            assertTrue(first.matches("project-42/\\d{13}-[0-9a-f]{8}-my_video\\.mp4"), first);
+            assertNotEquals(first, second);
+        }
+    }
+
+    @Nested
+    @DisplayName("Pipeline Metrics Tests")
+    class PipelineMetricsTests {
+
+        @Test
+        @DisplayName("Should time every upload stage and count the transferred bytes")
+        void shouldRecordUploadStages() throws Exception {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> {
+                PutObjectArgs args = invocation.getArgument(0);
+                args.stream().readAllBytes();
+                return null;
+            }).when(minioClient).putObject(any(PutObjectArgs.class));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+
+            // When
+            fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER));
+
+            // Then
+            assertEquals(1, stageCount(StorageMetrics.VALIDATION, "success", "unknown"));
+            assertEquals(1, stageCount(StorageMetrics.CONTENT_DETECTION, "success", "PDF"));
+            assertEquals(1, stageCount(StorageMetrics.QUOTA_RESERVE, "success", "PDF"));
+            assertEquals(2, stageCount(StorageMetrics.DB_SAVE, "success", "PDF"));
+            assertEquals(1, stageCount(StorageMetrics.OBJECT_PUT, "success", "PDF"));
+            assertEquals(testFile.getSize(), meterRegistry.get("storage.transfer.bytes")
+                    .tags("direction", "upload", "type", "PDF").counter().count());
+            assertEquals(0, meterRegistry.get("storage.uploads.in-flight").gauge().value());
+        }
+
+        @Test
+        @DisplayName("Should record a stage that throws as failed")
+        void shouldRecordFailedStage() {
+            // Given
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(0);
+
+            // When
+            assertThrows(StorageLimitExceededException.class, () ->
+                    fileStorageService.uploadFile(testFile, 1L, 1L, null));
+
+            // Then
+            assertEquals(1, stageCount(StorageMetrics.DB_SAVE, "failure", "PDF"));
+            assertNull(meterRegistry.find("storage.stage").tag("stage", StorageMetrics.OBJECT_PUT).timer());
+        }
+
+        private long stageCount(String stage, String outcome, String type) {
+            return meterRegistry.get("storage.stage")
+                    .tags("stage", stage, "outcome", outcome, "type", type)
+                    .timer()
+                    .count();
+        }
+    }
+
     @Nested
     @DisplayName("Download File Tests")
     class DownloadFileTests {
@@ -320,8 +936,8 @@ class FileStorageServiceTest {
             
             when(resourceRepository.findByIdAndProjectId(1L, 1L))
                     .thenReturn(Optional.of(testResource));
-            when(userRepository.findById(1L))
-                    .thenReturn(Optional.of(testUser));
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
             doAnswer(invocation -> mockResponse).when(minioClient)
                     .getObject(any(GetObjectArgs.class));
             
@@ -338,6 +954,63 @@ class FileStorageServiceTest {
             verify(minioClient).getObject(any(GetObjectArgs.class));
         }
         
+        @Test
+        @DisplayName("Should describe a download with validators and without reading the object")
+        void shouldDescribeDownloadWithoutReadingObject() throws Exception {
+            // Given
+            testResource.setBlob(ContentBlob.builder().id(5L).sha256("abc123").build());
+            when(resourceRepository.findByIdAndProjectId(1L, 1L))
+                    .thenReturn(Optional.of(testResource));
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
+
+            // When
+            FileDownloadResponse result = fileStorageService.describeDownload(1L, 1L, 1L);
+
+            // Then
+            assertEquals("\"abc123\"", result.getEtag());
+            assertEquals(testResource.getKey(), result.getKey());
+            assertNull(result.getInputStream());
+            verifyNoInteractions(minioClient);
+        }
+
+        @Test
+        @DisplayName("Should pass a byte range through to MinIO")
+        void shouldOpenObjectRange() throws Exception {
+            // Given
+            GetObjectResponse mockResponse = mock(GetObjectResponse.class);
+            when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(mockResponse);
+
+            // When
+            fileStorageService.openObject("project-1/key.mp4", 100L, 50L);
+
+            // Then
+            ArgumentCaptor<GetObjectArgs> argsCaptor = ArgumentCaptor.forClass(GetObjectArgs.class);
+            verify(minioClient).getObject(argsCaptor.capture());
+            assertEquals(100L, argsCaptor.getValue().offset());
+            assertEquals(50L, argsCaptor.getValue().length());
+        }
+
+        @Test
+        @DisplayName("Should read a cached object from disk without calling MinIO")
+        void shouldOpenCachedObject(@TempDir Path cacheDir) throws Exception {
+            // Given
+            Path file = Files.write(cacheDir.resolve("object"), "0123456789".getBytes());
+            when(objectCache.isEnabled()).thenReturn(true);
+            when(objectCache.get("project-1/key.mp4"))
+                    .thenReturn(Optional.of(new LocalObjectCache.CachedObject(file, 10L)));
+
+            // When
+            byte[] content;
+            try (InputStream inputStream = fileStorageService.openObject("project-1/key.mp4", 2L, 5L)) {
+                content = inputStream.readAllBytes();
+            }
+
+            // Then
+            assertEquals("23456", new String(content));
+            verify(minioClient, never()).getObject(any(GetObjectArgs.class));
+        }
+
         @Test
         @DisplayName("Should fail when resource not found")
         void shouldFailWhenResourceNotFound() {
@@ -358,8 +1031,8 @@ class FileStorageServiceTest {
             testResource.setStatus(ResourceStatus.DELETED);
             when(resourceRepository.findByIdAndProjectId(1L, 1L))
                     .thenReturn(Optional.of(testResource));
-            when(userRepository.findById(1L))
-                    .thenReturn(Optional.of(testUser));
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
 
             // When & Then
             ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
@@ -382,8 +1055,8 @@ class FileStorageServiceTest {
             
             when(resourceRepository.findByIdAndProjectId(1L, 1L))
                     .thenReturn(Optional.of(testResource));
-            when(userRepository.findById(2L))
-                    .thenReturn(Optional.of(unauthorizedUser));
+            when(metadataLookupService.getUser(2L))
+                    .thenReturn(snapshotOf(unauthorizedUser));
             
             // When & Then
             assertThrows(AccessDeniedException.class, () ->
@@ -392,6 +1065,138 @@ class FileStorageServiceTest {
         }
     }
     
+    @Nested
+    @DisplayName("Content Deduplication Tests")
+    class ContentDeduplicationTests {
+
+        @Test
+        @DisplayName("Should point duplicate content at the existing blob and drop the new object")
+        void shouldReuseExistingBlob() throws Exception {
+            // Given
+            ContentBlob existing = ContentBlob.builder()
+                    .id(5L)
+                    .key("project-1/11111-uuid-original.pdf")
+                    .size(testFile.getSize())
+                    .refCount(1)
+                    .build();
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(contentBlobRepository.findBySha256WithLock(any(String.class)))
+                    .thenReturn(Optional.of(existing));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> {
+                PutObjectArgs args = invocation.getArgument(0);
+                args.stream().readAllBytes();
+                return null;
+            }).when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When
+            Resource result = fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER));
+
+            // Then
+            assertEquals("project-1/11111-uuid-original.pdf", result.getKey());
+            assertEquals(existing, result.getBlob());
+            assertEquals(2, existing.getRefCount());
+            verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should retry activation onto the blob a concurrent upload of the same content created")
+        void shouldRetryWhenBlobCreatedConcurrently() throws Exception {
+            // Given
+            ContentBlob concurrent = ContentBlob.builder()
+                    .id(6L)
+                    .key("project-1/22222-uuid-concurrent.pdf")
+                    .size(testFile.getSize())
+                    .refCount(1)
+                    .build();
+            when(projectRepository.findById(1L))
+                    .thenReturn(Optional.of(testProject));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(contentBlobRepository.findBySha256WithLock(any(String.class)))
+                    .thenReturn(Optional.empty())
+                    .thenReturn(Optional.of(concurrent));
+            when(contentBlobRepository.save(any(ContentBlob.class)))
+                    .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(projectRepository.reserveStorage(eq(1L), any(BigInteger.class))).thenReturn(1);
+            when(resourceRepository.save(any(Resource.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> null).when(minioClient).putObject(any(PutObjectArgs.class));
+
+            // When
+            Resource result = fileStorageService.uploadFile(testFile, 1L, 1L, Set.of(UserRole.DEVELOPER));
+
+            // Then
+            assertEquals(ResourceStatus.ACTIVE, result.getStatus());
+            assertEquals(concurrent, result.getBlob());
+            assertEquals(2, concurrent.getRefCount());
+            verify(resourceRepository, never()).deleteById(any());
+            InOrder order = inOrder(transactionTemplate, minioClient);
+            order.verify(transactionTemplate, times(3)).execute(any());
+            order.verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should keep a shared object while other resources still reference it")
+        void shouldKeepSharedObjectOnDelete() throws Exception {
+            // Given
+            ContentBlob shared = ContentBlob.builder()
+                    .id(5L)
+                    .key(testResource.getKey())
+                    .refCount(2)
+                    .build();
+            testResource.setBlob(shared);
+            when(resourceRepository.findByIdAndProjectId(1L, 1L))
+                    .thenReturn(Optional.of(testResource));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(contentBlobRepository.findByIdWithLock(5L))
+                    .thenReturn(Optional.of(shared));
+
+            // When
+            fileStorageService.deleteFile(1L, 1L, 1L);
+
+            // Then
+            assertEquals(1, shared.getRefCount());
+            assertNull(testResource.getBlob());
+            verify(minioClient, never()).removeObject(any());
+            verify(objectDeletionQueue, never()).enqueue(any());
+            verify(contentBlobRepository, never()).delete(any());
+        }
+
+        @Test
+        @DisplayName("Should remove the object once the last reference is deleted")
+        void shouldRemoveObjectWithLastReference() throws Exception {
+            // Given
+            ContentBlob blob = ContentBlob.builder()
+                    .id(5L)
+                    .key(testResource.getKey())
+                    .refCount(1)
+                    .build();
+            testResource.setBlob(blob);
+            when(resourceRepository.findByIdAndProjectId(1L, 1L))
+                    .thenReturn(Optional.of(testResource));
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(testUser));
+            when(contentBlobRepository.findByIdWithLock(5L))
+                    .thenReturn(Optional.of(blob));
+
+            // When
+            fileStorageService.deleteFile(1L, 1L, 1L);
+
+            // Then
+            verify(contentBlobRepository).delete(blob);
+            verify(objectDeletionQueue).enqueue(blob.getKey());
+            verify(minioClient, never()).removeObject(any());
+        }
+    }
+
     @Nested
     @DisplayName("Delete File Tests")
     class DeleteFileTests {
@@ -407,16 +1212,16 @@ class FileStorageServiceTest {
                     .thenReturn(Optional.of(testUser));
             when(resourceRepository.save(any(Resource.class)))
                     .thenReturn(testResource);
-            when(resourceRepository.calculateProjectStorageSize(1L))
-                    .thenReturn(0L);
-            doAnswer(invocation -> null).when(minioClient).removeObject(any(RemoveObjectArgs.class));
-            when(projectRepository.updateStorageSize(anyLong(), any(BigInteger.class))).thenReturn(1);
+            when(projectRepository.releaseStorage(1L, BigInteger.valueOf(1024L))).thenReturn(1);
+            String key = testResource.getKey();
             
             // When
             fileStorageService.deleteFile(1L, 1L, 1L);
             
             // Then
-            verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+            verify(objectDeletionQueue).enqueue(key);
+            verify(minioClient, never()).removeObject(any());
+            verify(projectRepository).releaseStorage(1L, BigInteger.valueOf(1024L));
             
             ArgumentCaptor<Resource> resourceCaptor = ArgumentCaptor.forClass(Resource.class);
             verify(resourceRepository).save(resourceCaptor.capture());
@@ -447,16 +1252,14 @@ class FileStorageServiceTest {
                     .thenReturn(Optional.of(managerUser));
             when(resourceRepository.save(any(Resource.class)))
                     .thenReturn(testResource);
-            when(resourceRepository.calculateProjectStorageSize(1L))
-                    .thenReturn(0L);
-            doAnswer(invocation -> null).when(minioClient).removeObject(any(RemoveObjectArgs.class));
-            when(projectRepository.updateStorageSize(anyLong(), any(BigInteger.class))).thenReturn(1);
+            when(projectRepository.releaseStorage(1L, BigInteger.valueOf(1024L))).thenReturn(1);
+            String key = testResource.getKey();
             
             // When
             fileStorageService.deleteFile(1L, 1L, 2L);
             
             // Then
-            verify(minioClient).removeObject(any(RemoveObjectArgs.class));
+            verify(objectDeletionQueue).enqueue(key);
             verify(resourceRepository).save(any(Resource.class));
         }
         
@@ -484,6 +1287,7 @@ class FileStorageServiceTest {
             );
             
             verify(minioClient, never()).removeObject(any());
+            verify(objectDeletionQueue, never()).enqueue(any());
             verify(resourceRepository, never()).save(any());
         }
         
@@ -502,10 +1306,102 @@ class FileStorageServiceTest {
             
             // Then
             verify(minioClient, never()).removeObject(any());
+            verify(objectDeletionQueue, never()).enqueue(any());
             verify(resourceRepository, never()).save(any());
         }
     }
     
+    @Nested
+    @DisplayName("Bulk Delete Tests")
+    class BulkDeleteTests {
+
+        @Test
+        @DisplayName("Should delete the loaded set with one quota decrement and one update")
+        void shouldDeleteLoadedSet() throws Exception {
+            // Given
+            ContentBlob blob = ContentBlob.builder()
+                    .id(5L)
+                    .key("project-1/shared.pdf")
+                    .refCount(1)
+                    .build();
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
+            when(resourceRepository.findDeletionCandidates(Set.of(1L, 2L, 3L), 1L)).thenReturn(List.of(
+                    new TestDeletionCandidate(1L, "project-1/a.pdf", 100, null, 2L),
+                    new TestDeletionCandidate(2L, "project-1/shared.pdf", 50, 5L, 2L)));
+            when(contentBlobRepository.findByIdWithLock(5L))
+                    .thenReturn(Optional.of(blob));
+
+            // When
+            BulkDeleteResponse response = fileStorageService.deleteFiles(
+                    BulkDeleteRequest.builder().resourceIds(List.of(1L, 2L, 3L)).build(), 1L, 1L);
+
+            // Then
+            assertEquals(2, response.getDeleted());
+            assertEquals(List.of(3L), response.getSkipped());
+            verify(contentBlobRepository).delete(blob);
+            verify(objectDeletionQueue).enqueue("project-1/shared.pdf");
+            verify(objectDeletionQueue).enqueueResources(List.of(1L, 2L));
+            verify(projectRepository).releaseStorage(1L, BigInteger.valueOf(150));
+            verify(resourceRepository).markDeleted(eq(List.of(1L, 2L)), eq(ResourceStatus.DELETED), any(),
+                    any(LocalDateTime.class));
+        }
+
+        @Test
+        @DisplayName("Should report ids excluded by the filter as skipped")
+        void shouldSkipIdsExcludedByFilter() throws Exception {
+            // Given
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
+            when(resourceRepository.findDeletionCandidates(Set.of(1L, 2L), 1L)).thenReturn(List.of(
+                    new TestDeletionCandidate(1L, "project-1/a.pdf", 100, null, 2L),
+                    new TestDeletionCandidate(2L, "project-1/b.pdf", 50, null, 1L)));
+
+            // When
+            BulkDeleteResponse response = fileStorageService.deleteFiles(
+                    BulkDeleteRequest.builder().resourceIds(List.of(1L, 2L)).createdBy(2L).build(), 1L, 1L);
+
+            // Then
+            assertEquals(1, response.getDeleted());
+            assertEquals(List.of(2L), response.getSkipped());
+            verify(objectDeletionQueue).enqueueResources(List.of(1L));
+            verify(projectRepository).releaseStorage(1L, BigInteger.valueOf(100));
+        }
+
+        @Test
+        @DisplayName("Should delete nothing when one resource belongs to someone else")
+        void shouldRejectForeignResources() {
+            // Given
+            User developer = User.builder()
+                    .id(2L)
+                    .roles(List.of(UserRole.DEVELOPER))
+                    .build();
+            when(metadataLookupService.getUser(2L))
+                    .thenReturn(snapshotOf(developer));
+            when(resourceRepository.findDeletionCandidates(Set.of(1L, 2L), 1L)).thenReturn(List.of(
+                    new TestDeletionCandidate(1L, "project-1/a.pdf", 100, null, 2L),
+                    new TestDeletionCandidate(2L, "project-1/b.pdf", 100, null, 1L)));
+
+            // When & Then
+            assertThrows(AccessDeniedException.class, () -> fileStorageService.deleteFiles(
+                    BulkDeleteRequest.builder().resourceIds(List.of(1L, 2L)).build(), 1L, 2L));
+
+            verify(resourceRepository, never()).markDeleted(any(), any(), any(), any());
+            verify(projectRepository, never()).releaseStorage(any(), any());
+            verify(objectDeletionQueue, never()).enqueueResources(any());
+        }
+
+        @Test
+        @DisplayName("Should require ids or a filter")
+        void shouldRequireSelection() {
+            // When & Then
+            assertThrows(IllegalArgumentException.class, () ->
+                    fileStorageService.deleteFiles(new BulkDeleteRequest(), 1L, 1L));
+
+            verifyNoInteractions(resourceRepository);
+        }
+    }
+
     @Nested
     @DisplayName("Generate Presigned URL Tests")
     class PresignedUrlTests {
@@ -518,8 +1414,8 @@ class FileStorageServiceTest {
             
             when(resourceRepository.findByIdAndProjectId(1L, 1L))
                     .thenReturn(Optional.of(testResource));
-            when(userRepository.findById(1L))
-                    .thenReturn(Optional.of(testUser));
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
             doAnswer(invocation -> expectedUrl).when(minioClient)
                     .getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
             
@@ -543,6 +1439,50 @@ class FileStorageServiceTest {
                     fileStorageService.generatePresignedUrl(999L, 1L, 100L)
             );
         }
+
+        @Test
+        @DisplayName("Should refuse to sign a resource that is not active")
+        void shouldRefusePresignedUrlForInactiveResource() throws Exception {
+            // Given
+            testResource.setStatus(ResourceStatus.PENDING);
+            when(resourceRepository.findByIdAndProjectId(1L, 1L))
+                    .thenReturn(Optional.of(testResource));
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
+
+            // When & Then
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                    fileStorageService.generatePresignedUrl(1L, 1L, 1L));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+            verify(minioClient, never()).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+        }
+
+        @Test
+        @DisplayName("Should sign a batch with one lookup and report unusable ids per entry")
+        void shouldGeneratePresignedUrlBatch() throws Exception {
+            // Given
+            when(metadataLookupService.getUser(1L))
+                    .thenReturn(snapshotOf(testUser));
+            when(resourceRepository.findObjectAccess(Set.of(1L, 2L, 3L, 4L), 1L)).thenReturn(List.of(
+                    new TestObjectAccess(1L, "project-1/a.pdf", ResourceStatus.ACTIVE, UserRole.DEVELOPER.bit()),
+                    new TestObjectAccess(3L, "project-1/c.pdf", ResourceStatus.ACTIVE, UserRole.OWNER.bit()),
+                    new TestObjectAccess(4L, "project-1/d.pdf", ResourceStatus.PENDING, UserRole.DEVELOPER.bit())));
+            doAnswer(invocation -> "https://minio.example.com/bucket/a.pdf?signature=abc123").when(minioClient)
+                    .getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+
+            // When
+            List<PresignedUrlResponse> result = fileStorageService.generatePresignedUrls(
+                    List.of(4L, 3L, 2L, 1L), 1L, 1L);
+
+            // Then
+            assertEquals(List.of(4L, 3L, 2L, 1L), result.stream().map(PresignedUrlResponse::getResourceId).toList());
+            assertEquals("https://minio.example.com/bucket/a.pdf?signature=abc123", result.get(3).getUrl());
+            assertEquals(3600, result.get(3).getExpiresIn());
+            assertNull(result.get(0).getUrl());
+            assertEquals("User 1 does not have permission to access resource 3 in project 1", result.get(1).getError());
+            assertEquals("Resource 2 not found or doesn't belong to project 1", result.get(2).getError());
+            verify(minioClient, times(1)).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+        }
     }
 
     private static class OversizedMockMultipartFile extends MockMultipartFile {
@@ -559,4 +1499,76 @@ class FileStorageServiceTest {
             return reportedSize;
         }
     }
+
+    private record TestDeletionCandidate(Long id, String objectKey, long size, Long blobId, Long createdById)
+            implements ResourceRepository.DeletionCandidate {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getObjectKey() {
+            return objectKey;
+        }
+
+        @Override
+        public BigInteger getObjectSize() {
+            return BigInteger.valueOf(size);
+        }
+
+        @Override
+        public ResourceStatus getStatus() {
+            return ResourceStatus.ACTIVE;
+        }
+
+        @Override
+        public ResourceType getResourceType() {
+            return ResourceType.PDF;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return LocalDateTime.now();
+        }
+
+        @Override
+        public Long getCreatedById() {
+            return createdById;
+        }
+
+        @Override
+        public Long getBlobId() {
+            return blobId;
+        }
+    }
+
+    private record TestObjectAccess(Long id, String objectKey, ResourceStatus status, Integer allowedRolesMask)
+            implements ResourceRepository.ObjectAccess {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getObjectKey() {
+            return objectKey;
+        }
+
+        @Override
+        public ResourceStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public Integer getAllowedRolesMask() {
+            return allowedRolesMask;
+        }
+    }
+
+    private static UserSnapshot snapshotOf(User user) {
+        return new UserSnapshot(user.getId(), user.getNickname(), UserRole.toMask(user.getRoles()));
+    }
 }
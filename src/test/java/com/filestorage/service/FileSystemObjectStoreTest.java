@@ -0,0 +1,123 @@
+package com.filestorage.service;
+
+import com.filestorage.config.FileSystemStoreProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FileSystemObjectStore Unit Tests")
+class FileSystemObjectStoreTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemObjectStore objectStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileSystemStoreProperties properties = new FileSystemStoreProperties();
+        properties.setRoot(root.toString());
+        properties.setPublicUrl("https://files.example.com");
+        properties.setSigningKey("test-signing-key");
+
+        objectStore = new FileSystemObjectStore(properties);
+        objectStore.init();
+    }
+
+    @Test
+    @DisplayName("Should write an object and read it back whole and by range")
+    void shouldPutAndGet() throws IOException {
+        // Given
+        byte[] content = "0123456789".getBytes();
+
+        // When
+        objectStore.put("project-1/object", new ByteArrayInputStream(content), -1, "text/plain");
+
+        // Then
+        assertArrayEquals(content, read(objectStore.get("project-1/object", 0, null)));
+        assertEquals("234", new String(read(objectStore.get("project-1/object", 2, 3L))));
+        assertEquals(10L, objectStore.findLocal("project-1/object").orElseThrow().size());
+
+        ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+        objectStore.findLocal("project-1/object").orElseThrow().transferTo(5, 5, transferred);
+        assertEquals("56789", transferred.toString());
+        assertEquals(List.of(root.resolve("project-1/object")), files());
+    }
+
+    @Test
+    @DisplayName("Should leave nothing behind when the stream is shorter than announced")
+    void shouldDiscardIncompleteObject() {
+        // When & Then
+        assertThrows(IOException.class, () ->
+                objectStore.put("project-1/object", new ByteArrayInputStream(new byte[5]), 10, "text/plain"));
+        assertTrue(objectStore.findLocal("project-1/object").isEmpty());
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    @DisplayName("Should remove objects in a batch, treating missing ones as removed")
+    void shouldDeleteAll() throws IOException {
+        // Given
+        objectStore.put("project-1/a", new ByteArrayInputStream(new byte[1]), 1, "text/plain");
+
+        // When
+        Map<String, String> failures = objectStore.deleteAll(List.of("project-1/a", "project-1/missing", "../outside"));
+
+        // Then
+        assertEquals(List.of("../outside"), List.copyOf(failures.keySet()));
+        assertTrue(objectStore.findLocal("project-1/a").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should sign download links and reject tampered or expired ones")
+    void shouldPresignAndVerify() {
+        // When
+        String url = objectStore.presign("project-1/object", 60);
+
+        // Then
+        assertTrue(url.startsWith("https://files.example.com/api/v1/objects?"));
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUriString(url).build().getQueryParams();
+        String key = query.getFirst("key");
+        long expires = Long.parseLong(query.getFirst("expires"));
+        String signature = query.getFirst("signature");
+
+        assertEquals("project-1/object", key);
+        assertTrue(objectStore.verify(key, expires, signature));
+        assertFalse(objectStore.verify("project-1/other", expires, signature));
+        assertFalse(objectStore.verify(key, expires + 1, signature));
+        assertFalse(objectStore.verify(key, 0, signature));
+    }
+
+    private static byte[] read(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private List<Path> files() {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ObjectCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("LocalObjectCache Unit Tests")
+class LocalObjectCacheTest {
+
+    @TempDir
+    private Path cacheDir;
+
+    private LocalObjectCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ObjectCacheProperties properties = new ObjectCacheProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(cacheDir.toString());
+        properties.setMaxBytes(10);
+        properties.setMaxObjectSize(8);
+        properties.setMaxSpoolBytes(12);
+        properties.setFetchThreads(2);
+
+        cache = start(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(cache, "shutdown");
+    }
+
+    private static LocalObjectCache start(ObjectCacheProperties properties) {
+        LocalObjectCache cache = new LocalObjectCache(properties);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+
+    @Test
+    @DisplayName("Should cache an object once it has been fetched")
+    void shouldCacheFetchedObject() throws Exception {
+        // When
+        byte[] content = readFully(cache.fetch("a", 6, () -> new ByteArrayInputStream("abcdef".getBytes())));
+
+        // Then
+        assertEquals("abcdef", new String(content));
+        LocalObjectCache.CachedObject cached = cache.get("a").orElseThrow();
+        assertEquals(6L, cached.size());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cached.transferTo(1, 3, out);
+        assertEquals("bcd", out.toString());
+    }
+
+    @Test
+    @DisplayName("Should share one upstream read between concurrent readers")
+    void shouldCoalesceConcurrentFetches() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger opened = new AtomicInteger();
+        LocalObjectCache.ObjectOpener opener = () -> {
+            opened.incrementAndGet();
+            return new GatedInputStream("abcdef".getBytes(), release);
+        };
+
+        // When
+        InputStream first = cache.fetch("a", 6, opener);
+        InputStream second = cache.fetch("a", 6, opener);
+        release.countDown();
+
+        // Then
+        assertArrayEquals("abcdef".getBytes(), readFully(second));
+        assertArrayEquals("abcdef".getBytes(), readFully(first));
+        assertEquals(1, opened.get());
+        assertTrue(cache.get("a").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should stream objects above the per-object limit without keeping them")
+    void shouldNotKeepOversizedObjects() throws Exception {
+        // When
+        byte[] content = readFully(cache.fetch("big", 9, () -> new ByteArrayInputStream(new byte[9])));
+
+        // Then
+        assertEquals(9, content.length);
+        assertFalse(cache.get("big").isPresent());
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should surface a failure to open the object and not remember it")
+    void shouldPropagateOpenFailure() throws Exception {
+        // When & Then
+        assertThrows(IOException.class, () -> cache.fetch("a", 3, () -> {
+            throw new IOException("object not found");
+        }));
+        assertArrayEquals("abc".getBytes(),
+                readFully(cache.fetch("a", 3, () -> new ByteArrayInputStream("abc".getBytes()))));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used object when over budget")
+    void shouldEvictLeastRecentlyUsed() throws Exception {
+        // Given
+        readFully(cache.fetch("a", 4, () -> new ByteArrayInputStream(new byte[4])));
+        readFully(cache.fetch("b", 4, () -> new ByteArrayInputStream(new byte[4])));
+        cache.get("a");
+
+        // When
+        readFully(cache.fetch("c", 4, () -> new ByteArrayInputStream(new byte[4])));
+
+        // Then
+        assertTrue(cache.get("a").isPresent());
+        assertFalse(cache.get("b").isPresent());
+        assertTrue(cache.get("c").isPresent());
+        assertEquals(8L, cache.getUsedBytes());
+    }
+
+    @Test
+    @DisplayName("Should read without sharing once the spool budget is taken")
+    void shouldBypassSharingOverSpoolBudget() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream inFlight = cache.fetch("a", 8, () -> new GatedInputStream(new byte[8], release));
+        AtomicInteger opened = new AtomicInteger();
+        LocalObjectCache.ObjectOpener opener = () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream("abcdef".getBytes());
+        };
+
+        // When
+        byte[] first = readFully(cache.fetch("b", 6, opener));
+        byte[] second = readFully(cache.fetch("b", 6, opener));
+        release.countDown();
+
+        // Then
+        assertArrayEquals("abcdef".getBytes(), first);
+        assertArrayEquals("abcdef".getBytes(), second);
+        assertEquals(2, opened.get());
+        assertFalse(cache.get("b").isPresent());
+        assertEquals(8, readFully(inFlight).length);
+    }
+
+    @Test
+    @DisplayName("Should share one upstream read while the cache is disabled")
+    void shouldCoalesceWithCacheDisabled() throws Exception {
+        // Given
+        ReflectionTestUtils.invokeMethod(cache, "shutdown");
+        ObjectCacheProperties properties = new ObjectCacheProperties();
+        properties.setDirectory(cacheDir.toString());
+        properties.setMaxSpoolBytes(12);
+        properties.setFetchThreads(2);
+        cache = start(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger opened = new AtomicInteger();
+        LocalObjectCache.ObjectOpener opener = () -> {
+            opened.incrementAndGet();
+            return new GatedInputStream("abcdef".getBytes(), release);
+        };
+
+        // When
+        InputStream first = cache.fetch("a", 6, opener);
+        InputStream second = cache.fetch("a", 6, opener);
+        release.countDown();
+
+        // Then
+        assertArrayEquals("abcdef".getBytes(), readFully(second));
+        assertArrayEquals("abcdef".getBytes(), readFully(first));
+        assertEquals(1, opened.get());
+        assertFalse(cache.get("a").isPresent());
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop the file when an object is invalidated")
+    void shouldInvalidate() throws Exception {
+        // Given
+        readFully(cache.fetch("a", 3, () -> new ByteArrayInputStream("abc".getBytes())));
+        Path file = cache.get("a").orElseThrow().path();
+
+        // When
+        cache.invalidate("a");
+
+        // Then
+        assertFalse(cache.get("a").isPresent());
+        assertFalse(Files.exists(file));
+        assertEquals(0L, cache.getUsedBytes());
+    }
+
+    @Test
+    @DisplayName("Should keep a linked file readable after its entry is dropped")
+    void shouldKeepLinkAfterInvalidation() throws Exception {
+        // Given
+        readFully(cache.fetch("a", 3, () -> new ByteArrayInputStream("abc".getBytes())));
+        LocalObjectCache.CachedObject cached = cache.get("a").orElseThrow();
+        Path link = cache.link(cached).orElseThrow();
+
+        // When
+        cache.invalidate("a");
+
+        // Then
+        assertFalse(Files.exists(cached.path()));
+        assertEquals("abc", Files.readString(link));
+        assertFalse(cache.link(cached).isPresent());
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static class GatedInputStream extends FilterInputStream {
+        private final CountDownLatch release;
+
+        GatedInputStream(byte[] content, CountDownLatch release) {
+            super(new ByteArrayInputStream(content));
+            this.release = release;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                if (!release.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("Upstream was never released");
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return super.read(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.filestorage.service;
+
+import com.filestorage.config.ObjectSweeperProperties;
+import com.filestorage.model.ObjectTombstone;
+import com.filestorage.repository.ObjectTombstoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ObjectDeletionQueue Unit Tests")
+class ObjectDeletionQueueTest {
+
+    @Mock
+    private MinioClient minioClient;
+
+    @Mock
+    private ObjectTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LocalObjectCache objectCache;
+
+    private ObjectSweeperProperties properties;
+    private ObjectDeletionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ObjectSweeperProperties();
+        properties.setBatchSize(2);
+        properties.setRetryBackoffMillis(1000);
+        properties.setMaxRetryBackoffMillis(3000);
+
+        MinioObjectStore objectStore = new MinioObjectStore(minioClient, mock(ParallelMultipartUploader.class));
+        ReflectionTestUtils.setField(objectStore, "bucketName", "test-bucket");
+
+        queue = new ObjectDeletionQueue(objectStore, tombstoneRepository, transactionTemplate, objectCache,
+                properties, new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(queue, "init");
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should remove due objects in batches and drop their tombstones")
+    void shouldRemoveObjectsInBatches() {
+        // Given
+        when(tombstoneRepository.findDue(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(tombstone(1L, "a"), tombstone(2L, "b")))
+                .thenReturn(List.of(tombstone(3L, "c")));
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of());
+        when(tombstoneRepository.count()).thenReturn(0L);
+
+        // When
+        queue.sweep();
+
+        // Then
+        verify(minioClient, times(2)).removeObjects(any(RemoveObjectsArgs.class));
+        verify(tombstoneRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(tombstoneRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(objectCache).invalidate("a");
+        assertEquals(0L, queue.getBacklog());
+    }
+
+    @Test
+    @DisplayName("Should back off a key that MinIO refused and keep the rest")
+    void shouldRetryFailedKey() throws Exception {
+        // Given
+        ObjectTombstone failing = tombstone(2L, "b");
+        failing.setAttempts(1);
+        DeleteError error = mock(DeleteError.class);
+        when(error.objectName()).thenReturn("b");
+        when(error.code()).thenReturn("InternalError");
+        when(error.message()).thenReturn("We encountered an internal error");
+        when(tombstoneRepository.findDue(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(tombstone(1L, "a"), failing))
+                .thenReturn(List.of());
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of(new Result<DeleteError>(error)));
+        when(tombstoneRepository.count()).thenReturn(1L);
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        queue.sweep();
+
+        // Then
+        verify(tombstoneRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(tombstoneRepository).saveAll(List.of(failing));
+        assertEquals(2, failing.getAttempts());
+        assertEquals("InternalError: We encountered an internal error", failing.getLastError());
+        assertFalse(failing.getNextAttemptAt().isBefore(before.plusSeconds(2)));
+        assertEquals(1L, queue.getBacklog());
+    }
+
+    @Test
+    @DisplayName("Should stop the run when a whole batch fails")
+    void shouldStopWhenMinioIsDown() {
+        // Given
+        when(tombstoneRepository.findDue(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(tombstone(1L, "a"), tombstone(2L, "b")));
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class)))
+                .thenReturn(List.of(new Result<DeleteError>(new IOException("connection refused"))));
+        when(tombstoneRepository.count()).thenReturn(2L);
+
+        // When
+        queue.sweep();
+
+        // Then
+        verify(minioClient, times(1)).removeObjects(any(RemoveObjectsArgs.class));
+        verify(tombstoneRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(2L, queue.getBacklog());
+    }
+
+    private ObjectTombstone tombstone(Long id, String key) {
+        return ObjectTombstone.builder()
+                .id(id)
+                .key(key)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
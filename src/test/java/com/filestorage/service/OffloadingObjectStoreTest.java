@@ -0,0 +1,75 @@
+package com.filestorage.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OffloadingObjectStore Unit Tests")
+class OffloadingObjectStoreTest {
+
+    @Mock
+    private ObjectStore delegate;
+
+    private ExecutorService executor;
+    private OffloadingObjectStore objectStore;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "storage-call-1"));
+        objectStore = new OffloadingObjectStore(delegate, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run the delegate on the pool and hand its stream to the caller")
+    void shouldRunOnPool() throws IOException {
+        // Given
+        InputStream content = new ByteArrayInputStream(new byte[0]);
+        AtomicReference<String> callingThread = new AtomicReference<>();
+        when(delegate.get("key", 0, null)).thenAnswer(invocation -> {
+            callingThread.set(Thread.currentThread().getName());
+            return content;
+        });
+
+        // When
+        InputStream result = objectStore.get("key", 0, null);
+
+        // Then
+        assertSame(content, result);
+        assertEquals("storage-call-1", callingThread.get());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the delegate's exception unwrapped")
+    void shouldRethrowFailure() throws IOException {
+        // Given
+        IOException failure = new IOException("connection refused");
+        doThrow(failure).when(delegate).delete("key");
+
+        // When & Then
+        IOException thrown = assertThrows(IOException.class, () -> objectStore.delete("key"));
+        assertSame(failure, thrown);
+    }
+}
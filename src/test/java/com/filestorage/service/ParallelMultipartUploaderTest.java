@@ -0,0 +1,122 @@
+package com.filestorage.service;
+
+import com.filestorage.config.minio.MultipartMinioClient;
+import com.filestorage.config.minio.MultipartUploadProperties;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ParallelMultipartUploader Unit Tests")
+class ParallelMultipartUploaderTest {
+
+    private static final String BUCKET = "test-bucket";
+    private static final String KEY = "project-1/key";
+    private static final String UPLOAD_ID = "upload-1";
+
+    @Mock
+    private MultipartMinioClient multipartMinioClient;
+
+    private ParallelMultipartUploader uploader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MultipartUploadProperties properties = new MultipartUploadProperties();
+        properties.setPartSize(4);
+        properties.setConcurrency(2);
+        properties.setMemoryBudget(8);
+        properties.setMaxPartRetries(1);
+        properties.setRetryBackoffMillis(1);
+        properties.setExecutorThreads(2);
+
+        uploader = new ParallelMultipartUploader(multipartMinioClient, properties);
+        ReflectionTestUtils.invokeMethod(uploader, "init");
+
+        when(multipartMinioClient.createMultipartUpload(BUCKET, KEY, "application/zip"))
+                .thenReturn(CompletableFuture.completedFuture(UPLOAD_ID));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(uploader, "shutdown");
+    }
+
+    @Test
+    @DisplayName("Should upload every part and complete in part order")
+    void shouldUploadPartsAndComplete() throws Exception {
+        // Given
+        when(multipartMinioClient.uploadPart(eq(BUCKET), eq(KEY), eq(UPLOAD_ID), anyInt(), any(byte[].class), anyInt()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        new Part(invocation.getArgument(3), "etag-" + invocation.getArgument(3))));
+        when(multipartMinioClient.completeMultipartUpload(eq(BUCKET), eq(KEY), eq(UPLOAD_ID), any(Part[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        uploader.upload(BUCKET, KEY, new ByteArrayInputStream(new byte[10]), "application/zip");
+
+        // Then
+        ArgumentCaptor<Part[]> partsCaptor = ArgumentCaptor.forClass(Part[].class);
+        verify(multipartMinioClient).completeMultipartUpload(eq(BUCKET), eq(KEY), eq(UPLOAD_ID),
+                partsCaptor.capture());
+        assertArrayEquals(new int[]{1, 2, 3},
+                Arrays.stream(partsCaptor.getValue()).mapToInt(Part::partNumber).toArray());
+        verify(multipartMinioClient, never()).abortMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed part on its own")
+    void shouldRetryFailedPart() throws Exception {
+        // Given
+        when(multipartMinioClient.uploadPart(eq(BUCKET), eq(KEY), eq(UPLOAD_ID), eq(1), any(byte[].class), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("connection reset")))
+                .thenReturn(CompletableFuture.completedFuture(new Part(1, "etag-1")));
+        when(multipartMinioClient.completeMultipartUpload(eq(BUCKET), eq(KEY), eq(UPLOAD_ID), any(Part[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        uploader.upload(BUCKET, KEY, new ByteArrayInputStream(new byte[3]), "application/zip");
+
+        // Then
+        verify(multipartMinioClient, times(2))
+                .uploadPart(eq(BUCKET), eq(KEY), eq(UPLOAD_ID), eq(1), any(byte[].class), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should abort the upload when a part keeps failing")
+    void shouldAbortWhenPartKeepsFailing() throws Exception {
+        // Given
+        when(multipartMinioClient.uploadPart(eq(BUCKET), eq(KEY), eq(UPLOAD_ID), anyInt(), any(byte[].class), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("connection reset")));
+        when(multipartMinioClient.abortMultipartUpload(BUCKET, KEY, UPLOAD_ID))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When & Then
+        assertThrows(IOException.class, () ->
+                uploader.upload(BUCKET, KEY, new ByteArrayInputStream(new byte[3]), "application/zip"));
+
+        verify(multipartMinioClient).abortMultipartUpload(BUCKET, KEY, UPLOAD_ID);
+        verify(multipartMinioClient, never()).completeMultipartUpload(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,55 @@
+package com.filestorage.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("PresignedUrlCache Unit Tests")
+class PresignedUrlCacheTest {
+
+    @Test
+    @DisplayName("Should reuse a signed URL and sign it for one extra bucket")
+    void shouldReuseSignedUrl() {
+        // Given
+        PresignedUrlCache cache = new PresignedUrlCache(3600, 100, new SimpleMeterRegistry());
+        List<Integer> signedExpiries = new ArrayList<>();
+        PresignedUrlCache.UrlSigner signer = (key, expirySeconds) -> {
+            signedExpiries.add(expirySeconds);
+            return key + "?expires=" + expirySeconds;
+        };
+
+        // When
+        String first = cache.get("project-1/a.pdf", 600, signer);
+        String second = cache.get("project-1/a.pdf", 600, signer);
+        String other = cache.get("project-1/b.pdf", 600, signer);
+
+        // Then
+        assertEquals(first, second);
+        assertEquals("project-1/b.pdf?expires=4200", other);
+        assertEquals(List.of(4200, 4200), signedExpiries);
+    }
+
+    @Test
+    @DisplayName("Should sign every request when the bucket is zero")
+    void shouldSignEveryRequestWhenDisabled() {
+        // Given
+        PresignedUrlCache cache = new PresignedUrlCache(0, 100, new SimpleMeterRegistry());
+        List<Integer> signedExpiries = new ArrayList<>();
+        PresignedUrlCache.UrlSigner signer = (key, expirySeconds) -> {
+            signedExpiries.add(expirySeconds);
+            return key;
+        };
+
+        // When
+        cache.get("project-1/a.pdf", 600, signer);
+        cache.get("project-1/a.pdf", 600, signer);
+
+        // Then
+        assertEquals(List.of(600, 600), signedExpiries);
+    }
+}
@@ -0,0 +1,91 @@
+package com.filestorage.service;
+
+import com.filestorage.model.ResourceType;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("StorageMetrics Unit Tests")
+class StorageMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StorageMetrics storageMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        storageMetrics = new StorageMetrics(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should keep a download in flight until its stream is closed")
+    void shouldTrackDownloadUntilClosed() throws IOException {
+        // Given
+        InputStream content = storageMetrics.meterDownload(
+                new ByteArrayInputStream(new byte[1000]), ResourceType.VIDEO);
+
+        // When
+        content.readNBytes(600);
+
+        // Then
+        assertEquals(1, meterRegistry.get("storage.downloads.in-flight").gauge().value());
+        assertEquals(600, meterRegistry.get("storage.transfer.in-flight.bytes").gauge().value());
+
+        // When
+        content.readAllBytes();
+        content.close();
+        content.close();
+
+        // Then
+        assertEquals(0, meterRegistry.get("storage.downloads.in-flight").gauge().value());
+        assertEquals(0, meterRegistry.get("storage.transfer.in-flight.bytes").gauge().value());
+        assertEquals(1000, meterRegistry.get("storage.transfer.bytes")
+                .tags("direction", "download", "type", "VIDEO").counter().count());
+        assertEquals(1, meterRegistry.get("storage.transfer.throughput")
+                .tags("direction", "download", "type", "VIDEO").summary().count());
+    }
+
+    @Test
+    @DisplayName("Should tag a stage that throws with outcome failure and rethrow")
+    void shouldRecordFailure() {
+        // Given
+        IOException failure = new IOException("connection reset");
+
+        // When
+        IOException thrown = assertThrows(IOException.class, () ->
+                storageMetrics.run(StorageMetrics.OBJECT_PUT, ResourceType.PDF, () -> {
+                    throw failure;
+                }));
+
+        // Then
+        assertEquals(failure, thrown);
+        assertEquals(1, meterRegistry.get("storage.stage")
+                .tags("stage", StorageMetrics.OBJECT_PUT, "outcome", "failure", "type", "PDF")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("Should record repeated stages in one cached timer with SLO buckets")
+    void shouldReuseStageTimer() throws IOException {
+        // When
+        storageMetrics.run(StorageMetrics.DB_SAVE, ResourceType.PDF, () -> { });
+        storageMetrics.run(StorageMetrics.DB_SAVE, ResourceType.PDF, () -> { });
+
+        // Then
+        assertEquals(1, meterRegistry.find("storage.stage").timers().size());
+        Timer timer = meterRegistry.get("storage.stage")
+                .tags("stage", StorageMetrics.DB_SAVE, "outcome", "success", "type", "PDF")
+                .timer();
+        assertEquals(2, timer.count());
+        assertEquals(8, timer.takeSnapshot().histogramCounts().length);
+    }
+}
@@ -0,0 +1,174 @@
+package com.filestorage.service;
+
+import com.filestorage.model.Project;
+import com.filestorage.repository.ProjectRepository;
+import com.filestorage.repository.ResourceRepository;
+import com.filestorage.repository.UploadSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageQuotaReconciler Unit Tests")
+class StorageQuotaReconcilerTest {
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ResourceRepository resourceRepository;
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Spy
+    private StorageMetrics storageMetrics = new StorageMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private StorageQuotaReconciler reconciler;
+
+    @Test
+    @DisplayName("Should correct drifted projects from the sum read under the row lock")
+    void shouldCorrectDriftedProjects() {
+        // Given
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(projectRepository.findStorageUsage(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                usage(1L, BigInteger.valueOf(1000), BigInteger.valueOf(400)),
+                usage(2L, null, BigInteger.valueOf(250))));
+        when(projectRepository.findByIdWithLock(1L))
+                .thenReturn(Optional.of(project(1L, BigInteger.valueOf(1000))));
+        when(projectRepository.findByIdWithLock(2L))
+                .thenReturn(Optional.of(project(2L, null)));
+        // A reservation committed between the scan and the lock is part of the sum
+        when(resourceRepository.sumStorageSize(1L)).thenReturn(BigInteger.valueOf(600));
+        when(resourceRepository.sumStorageSize(2L)).thenReturn(BigInteger.valueOf(250));
+
+        // When
+        reconciler.reconcile();
+
+        // Then
+        InOrder inOrder = inOrder(projectRepository, resourceRepository);
+        inOrder.verify(projectRepository).findByIdWithLock(1L);
+        inOrder.verify(resourceRepository).sumStorageSize(1L);
+        inOrder.verify(projectRepository).updateStorageSize(1L, BigInteger.valueOf(600));
+        verify(projectRepository).updateStorageSize(2L, BigInteger.valueOf(250));
+    }
+
+    @Test
+    @DisplayName("Should leave a project alone when its drift is gone under the lock")
+    void shouldSkipDriftResolvedConcurrently() {
+        // Given
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(projectRepository.findStorageUsage(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                usage(1L, BigInteger.valueOf(1000), BigInteger.valueOf(400))));
+        when(projectRepository.findByIdWithLock(1L))
+                .thenReturn(Optional.of(project(1L, BigInteger.valueOf(400))));
+        when(resourceRepository.sumStorageSize(1L)).thenReturn(BigInteger.valueOf(400));
+
+        // When
+        reconciler.reconcile();
+
+        // Then
+        verify(projectRepository, never()).updateStorageSize(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should count the quota held by active upload sessions as used")
+    void shouldCountSessionReservations() {
+        // Given
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(projectRepository.findStorageUsage(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                usage(1L, BigInteger.valueOf(1000), BigInteger.valueOf(400), 600L),
+                usage(2L, BigInteger.valueOf(1000), BigInteger.valueOf(400), null)));
+        when(projectRepository.findByIdWithLock(2L))
+                .thenReturn(Optional.of(project(2L, BigInteger.valueOf(1000))));
+        when(resourceRepository.sumStorageSize(2L)).thenReturn(BigInteger.valueOf(400));
+        when(uploadSessionRepository.sumReservedSize(2L)).thenReturn(500L);
+
+        // When
+        reconciler.reconcile();
+
+        // Then
+        verify(projectRepository, never()).findByIdWithLock(1L);
+        verify(projectRepository).updateStorageSize(2L, BigInteger.valueOf(900));
+    }
+
+    @Test
+    @DisplayName("Should leave projects without drift untouched")
+    void shouldSkipProjectsWithoutDrift() {
+        // Given
+        when(projectRepository.findStorageUsage(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                usage(1L, BigInteger.valueOf(1000), BigInteger.valueOf(1000))));
+
+        // When
+        reconciler.reconcile();
+
+        // Then
+        verify(projectRepository, never()).findByIdWithLock(anyLong());
+        verify(projectRepository, never()).updateStorageSize(anyLong(), any());
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    private Project project(Long id, BigInteger storageSize) {
+        return Project.builder()
+                .id(id)
+                .storageSize(storageSize)
+                .build();
+    }
+
+    private ProjectRepository.StorageUsage usage(Long projectId, BigInteger recorded, BigInteger actual) {
+        return usage(projectId, recorded, actual, 0L);
+    }
+
+    private ProjectRepository.StorageUsage usage(Long projectId, BigInteger recorded, BigInteger actual,
+                                                 Long sessionReserved) {
+        return new ProjectRepository.StorageUsage() {
+            @Override
+            public Long getProjectId() {
+                return projectId;
+            }
+
+            @Override
+            public BigInteger getRecordedSize() {
+                return recorded;
+            }
+
+            @Override
+            public BigInteger getActualSize() {
+                return actual;
+            }
+
+            @Override
+            public Long getSessionReservedSize() {
+                return sessionReserved;
+            }
+        };
+    }
+}
@@ -0,0 +1,379 @@
+package com.filestorage.service;
+
+import com.filestorage.config.minio.MultipartMinioClient;
+import com.filestorage.dto.CreateUploadSessionRequest;
+import com.filestorage.dto.UploadSessionResponse;
+import com.filestorage.exception.ResourceNotFoundException;
+import com.filestorage.exception.StorageLimitExceededException;
+import com.filestorage.model.Resource;
+import com.filestorage.model.ResourceType;
+import com.filestorage.model.UploadSession;
+import com.filestorage.model.UploadSessionChunk;
+import com.filestorage.model.UploadSessionStatus;
+import com.filestorage.repository.UploadSessionChunkRepository;
+import com.filestorage.repository.UploadSessionRepository;
+import com.filestorage.util.ContentChecksums;
+import io.minio.messages.Part;
+import org.apache.tika.Tika;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UploadSessionService Unit Tests")
+class UploadSessionServiceTest {
+
+    private static final String BUCKET_NAME = "test-bucket";
+    private static final String SESSION_ID = "session-1";
+    private static final int CHUNK_SIZE = 5 * 1024 * 1024;
+
+    @Mock
+    private MultipartMinioClient multipartMinioClient;
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private UploadSessionChunkRepository chunkRepository;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private ObjectDeletionQueue objectDeletionQueue;
+
+    @Mock
+    private ObjectStore objectStore;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Tika tika;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private UploadSession session;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(uploadSessionService, "bucketName", BUCKET_NAME);
+        ReflectionTestUtils.setField(uploadSessionService, "chunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(uploadSessionService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(uploadSessionService, "maxFileSize", 500_000_000L);
+
+        session = UploadSession.builder()
+                .id(SESSION_ID)
+                .projectId(1L)
+                .createdBy(1L)
+                .fileName("video.mp4")
+                .contentType("video/mp4")
+                .key("project-1/12345-uuid-video.mp4")
+                .storageUploadId("minio-upload-1")
+                .chunkSize(CHUNK_SIZE)
+                .totalSize(CHUNK_SIZE + 100L)
+                .reservedSize(CHUNK_SIZE + 100L)
+                .allowedRoles(new ArrayList<>())
+                .status(UploadSessionStatus.ACTIVE)
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should start a multipart upload when creating a session")
+    void shouldCreateSession() throws Exception {
+        // Given
+        when(fileStorageService.generateStorageKey(1L, "video.mp4")).thenReturn(session.getKey());
+        when(tika.detect("video.mp4")).thenReturn("video/mp4");
+        when(multipartMinioClient.createMultipartUpload(BUCKET_NAME, session.getKey(), "video/mp4"))
+                .thenReturn(CompletableFuture.completedFuture("minio-upload-1"));
+        when(uploadSessionRepository.save(any(UploadSession.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        runTransactions();
+
+        // When
+        UploadSessionResponse response = uploadSessionService.createSession(
+                CreateUploadSessionRequest.builder().fileName("video.mp4").totalSize(1024L).build(), 1L, 1L);
+
+        // Then
+        assertEquals(UploadSessionStatus.ACTIVE, response.getStatus());
+        assertEquals(CHUNK_SIZE, response.getChunkSize());
+        verify(fileStorageService).validateStorageLimit(1L, 1024L);
+        verify(fileStorageService).reserveStorage(1L, 1024L, ResourceType.VIDEO);
+    }
+
+    @Test
+    @DisplayName("Should abort the multipart upload when the quota cannot be reserved")
+    void shouldAbortUploadWhenReservationFails() throws Exception {
+        // Given
+        when(fileStorageService.generateStorageKey(1L, "video.mp4")).thenReturn(session.getKey());
+        when(tika.detect("video.mp4")).thenReturn("video/mp4");
+        when(multipartMinioClient.createMultipartUpload(BUCKET_NAME, session.getKey(), "video/mp4"))
+                .thenReturn(CompletableFuture.completedFuture("minio-upload-1"));
+        when(multipartMinioClient.abortMultipartUpload(BUCKET_NAME, session.getKey(), "minio-upload-1"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        runTransactions();
+        doThrow(new StorageLimitExceededException("Storage limit exceeded"))
+                .when(fileStorageService).reserveStorage(1L, 1024L, ResourceType.VIDEO);
+
+        // When & Then
+        assertThrows(StorageLimitExceededException.class, () -> uploadSessionService.createSession(
+                CreateUploadSessionRequest.builder().fileName("video.mp4").totalSize(1024L).build(), 1L, 1L));
+        verify(multipartMinioClient).abortMultipartUpload(BUCKET_NAME, session.getKey(), "minio-upload-1");
+        verify(uploadSessionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should require the total size when creating a session")
+    void shouldRequireTotalSize() throws Exception {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> uploadSessionService.createSession(
+                CreateUploadSessionRequest.builder().fileName("video.mp4").build(), 1L, 1L));
+        verify(multipartMinioClient, never()).createMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should upload a chunk as a multipart part")
+    void shouldUploadChunk() throws Exception {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+        when(multipartMinioClient.uploadPart(eq(BUCKET_NAME), eq(session.getKey()), eq("minio-upload-1"),
+                eq(2), any(RandomAccessFile.class), eq(3L)))
+                .thenReturn(CompletableFuture.completedFuture(new Part(2, "etag-2")));
+
+        // When
+        uploadSessionService.uploadChunk(SESSION_ID, 2, new ByteArrayInputStream(new byte[3]), -1, null, 1L, 1L);
+
+        // Then
+        verify(chunkRepository).upsertChunk(SESSION_ID, 2, "etag-2", 3L);
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk that does not match its Content-MD5")
+    void shouldRejectChunkWithWrongMd5() throws Exception {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+        String contentMd5 = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("MD5").digest(new byte[] {1, 2, 3}));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk(SESSION_ID, 2, new ByteArrayInputStream(new byte[3]), 3,
+                        contentMd5, 1L, 1L));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(multipartMinioClient, never())
+                .uploadPart(any(), any(), any(), anyInt(), any(RandomAccessFile.class), anyLong());
+        verify(chunkRepository, never()).upsertChunk(any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject chunks that extend past the declared total size")
+    void shouldRejectChunkPastTotalSize() throws Exception {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+
+        // When & Then
+        ResponseStatusException beyondEnd = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk(SESSION_ID, 3, new ByteArrayInputStream(new byte[3]), 3, null, 1L, 1L));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, beyondEnd.getStatusCode());
+        assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk(SESSION_ID, 2, new ByteArrayInputStream(new byte[101]), -1, null, 1L, 1L));
+        verify(multipartMinioClient, never())
+                .uploadPart(any(), any(), any(), anyInt(), any(RandomAccessFile.class), anyLong());
+        verify(chunkRepository, never()).upsertChunk(any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk whose declared length exceeds the chunk size without reading it")
+    void shouldRejectOversizedContentLength() throws Exception {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+        InputStream body = mock(InputStream.class);
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                uploadSessionService.uploadChunk(SESSION_ID, 1, body, CHUNK_SIZE + 1L, null, 1L, 1L));
+
+        // Then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+        verifyNoInteractions(body, multipartMinioClient);
+    }
+
+    @Test
+    @DisplayName("Should register the committed object with its checksums under the session's reservation")
+    void shouldCommitSession() throws Exception {
+        // Given
+        givenCompletedUpload(CHUNK_SIZE + 100);
+        when(uploadSessionRepository.transitionStatus(
+                SESSION_ID, UploadSessionStatus.ACTIVE, UploadSessionStatus.COMPLETED)).thenReturn(1);
+        when(fileStorageService.registerUploadedObject(eq(session.getKey()), eq("video.mp4"),
+                eq(CHUNK_SIZE + 100L), eq("video/mp4"), eq(1L), eq(1L), any(), any(ContentChecksums.class)))
+                .thenReturn(Resource.builder().id(10L).name("video.mp4").build());
+
+        // When
+        Resource resource = uploadSessionService.commitSession(SESSION_ID, 1L, 1L);
+
+        // Then
+        assertEquals(10L, resource.getId());
+        assertEquals(UploadSessionStatus.COMPLETED, session.getStatus());
+        assertEquals(10L, session.getResourceId());
+        verify(fileStorageService, never()).reserveStorage(any(), anyLong(), any());
+        verify(fileStorageService, never()).releaseStorage(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should release the reservation and queue the object when registering it fails")
+    void shouldQueueObjectWhenRegistrationFails() throws Exception {
+        // Given
+        givenCompletedUpload(CHUNK_SIZE + 100);
+        runTransactions();
+        when(uploadSessionRepository.transitionStatus(
+                SESSION_ID, UploadSessionStatus.ACTIVE, UploadSessionStatus.COMPLETED)).thenReturn(1);
+        when(uploadSessionRepository.transitionStatus(
+                SESSION_ID, UploadSessionStatus.ACTIVE, UploadSessionStatus.ABORTED)).thenReturn(1);
+        when(fileStorageService.registerUploadedObject(eq(session.getKey()), eq("video.mp4"),
+                eq(CHUNK_SIZE + 100L), eq("video/mp4"), eq(1L), eq(1L), any(), any(ContentChecksums.class)))
+                .thenThrow(new IllegalStateException("Resource could not be saved"));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.commitSession(SESSION_ID, 1L, 1L));
+
+        // Then
+        verify(objectDeletionQueue).enqueue(session.getKey());
+        verify(fileStorageService).releaseStorage(1L, CHUNK_SIZE + 100L);
+        assertEquals(UploadSessionStatus.ABORTED, session.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should refuse to register a committed object of the wrong size")
+    void shouldRefuseCommitOfShortObject() throws Exception {
+        // Given
+        givenCompletedUpload(CHUNK_SIZE);
+        runTransactions();
+        when(uploadSessionRepository.transitionStatus(
+                SESSION_ID, UploadSessionStatus.ACTIVE, UploadSessionStatus.ABORTED)).thenReturn(1);
+
+        // When
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+                uploadSessionService.commitSession(SESSION_ID, 1L, 1L));
+
+        // Then
+        assertEquals(String.format("Committed object %s has %d bytes, expected %d",
+                session.getKey(), CHUNK_SIZE, CHUNK_SIZE + 100L), exception.getMessage());
+        verify(fileStorageService, never())
+                .registerUploadedObject(any(), any(), anyLong(), any(), any(), any(), any(), any());
+        verify(objectDeletionQueue).enqueue(session.getKey());
+    }
+
+    @Test
+    @DisplayName("Should release the reservation only once when a session is aborted")
+    void shouldReleaseReservationOnAbort() throws Exception {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+        runTransactions();
+        when(uploadSessionRepository.transitionStatus(
+                SESSION_ID, UploadSessionStatus.ACTIVE, UploadSessionStatus.ABORTED)).thenReturn(1, 0);
+        when(multipartMinioClient.abortMultipartUpload(BUCKET_NAME, session.getKey(), "minio-upload-1"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        uploadSessionService.abortSession(SESSION_ID, 1L, 1L);
+        session.setStatus(UploadSessionStatus.ACTIVE);
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.abortSession(SESSION_ID, 1L, 1L));
+        verify(fileStorageService).releaseStorage(1L, CHUNK_SIZE + 100L);
+        verify(multipartMinioClient).abortMultipartUpload(BUCKET_NAME, session.getKey(), "minio-upload-1");
+    }
+
+    @Test
+    @DisplayName("Should refuse to commit when a chunk is missing")
+    void shouldRefuseCommitWithGap() throws Exception {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+        when(chunkRepository.findBySessionIdOrderByChunkNumber(SESSION_ID)).thenReturn(List.of(
+                chunk(1, CHUNK_SIZE), chunk(3, 100)));
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+                uploadSessionService.commitSession(SESSION_ID, 1L, 1L));
+        assertEquals("Upload session session-1 is missing chunk 2", exception.getMessage());
+        verify(multipartMinioClient, never()).completeMultipartUpload(any(), any(), any(), any());
+        verify(fileStorageService, never())
+                .registerUploadedObject(any(), any(), anyLong(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should hide sessions created by other users")
+    void shouldHideOtherUsersSessions() {
+        // Given
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () ->
+                uploadSessionService.getSession(SESSION_ID, 1L, 2L));
+    }
+
+    private void givenCompletedUpload(int objectSize) throws Exception {
+        when(uploadSessionRepository.findByIdAndProjectId(SESSION_ID, 1L)).thenReturn(Optional.of(session));
+        when(chunkRepository.findBySessionIdOrderByChunkNumber(SESSION_ID)).thenReturn(List.of(
+                chunk(1, CHUNK_SIZE), chunk(2, 100)));
+        when(multipartMinioClient.completeMultipartUpload(eq(BUCKET_NAME), eq(session.getKey()),
+                eq("minio-upload-1"), any(Part[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(objectStore.get(session.getKey(), 0, null)).thenReturn(new ByteArrayInputStream(new byte[objectSize]));
+        lenient().when(fileStorageService.executeResolvingBlobs(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private void runTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private UploadSessionChunk chunk(int number, long size) {
+        return UploadSessionChunk.builder()
+                .sessionId(SESSION_ID)
+                .chunkNumber(number)
+                .etag("etag-" + number)
+                .size(size)
+                .build();
+    }
+}